@@ -0,0 +1,67 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import net.jolm.LdapContextMapper;
+import net.jolm.LdapContextMapperRegistry;
+import net.jolm.fixture.types.Person;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures resolving the mapper of an LDAP Entity class and of the object classes of an 
+ * entry, which every operation does. Runs with several threads to show contention on 
+ * the registry.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ContextMapperRegistryBenchmark {
+	private LdapContextMapperRegistry registry;
+	private String[] objectClasses = {"top", "person"};
+	
+	@Setup public void setUp() {
+		registry = new LdapContextMapperRegistry("net.jolm.fixture.mappers");
+		registry.preload();
+	}
+	
+	@Benchmark public LdapContextMapper getLdapContextMapperByClass() {
+		return registry.getLdapContextMapper(Person.class);
+	}
+	
+	@Benchmark public LdapContextMapper getLdapContextMapperByObjectClasses() {
+		return registry.getLdapContextMapper(objectClasses);
+	}
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.benchmarks;
+
+import java.beans.BeanInfo;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.util.concurrent.TimeUnit;
+
+import net.jolm.JolmLdapTemplate;
+import net.jolm.LdapContextMapper;
+import net.jolm.LdapEntity;
+import net.jolm.LdapEntityProperties;
+import net.jolm.fixture.mappers.PersonMapper;
+import net.jolm.fixture.types.Person;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.filter.AndFilter;
+import org.springframework.ldap.filter.EqualsFilter;
+import org.springframework.ldap.filter.WhitespaceWildcardsFilter;
+
+/**
+ * Measures building the filters of {@code findByExample} and {@code findByExamples} from
+ * the fields of the examples. No server is needed, the template is never connected.
+ * 
+ * <p>The {@code exampleFilter} benchmarks use the {@code toExampleFilter} method of the
+ * generated mapper, the {@code reflective*} ones the cached properties that the template
+ * falls back to for other mappers, and the {@code introspected*} ones the baseline that
+ * introspects the example with {@code Introspector.getBeanInfo} on every query.</p>
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExampleFilterBenchmark {
+	private JolmLdapTemplate template;
+	private JolmLdapTemplate reflectiveTemplate;
+	private Person example;
+	private LdapEntity[] examples;
+	
+	@Setup public void setUp() throws Exception {
+		template = new JolmLdapTemplate(new LdapTemplate());
+		template.setContextMappersPackage("net.jolm.fixture.mappers");
+		reflectiveTemplate = new JolmLdapTemplate(new LdapTemplate());
+		reflectiveTemplate.registerLdapContextMapper(Person.class, new PlainMapper(new PersonMapper()));
+		example = new Person("john", "doe");
+		example.setDescription(new String[] {"first", "second"});
+		examples = new LdapEntity[10];
+		for ( int i = 0; i < examples.length; i++ ) {
+			examples[i] = new Person("person" + i, null);
+		}
+	}
+	
+	@Benchmark public String exampleFilter() {
+		return template.getExampleFilter(example, false).encode();
+	}
+	
+	@Benchmark public String wildcardExampleFilter() {
+		return template.getExampleFilter(example, true).encode();
+	}
+	
+	@Benchmark public String examplesFilter() {
+		return template.getExamplesFilter(examples, false).encode();
+	}
+	
+	@Benchmark public String reflectiveExampleFilter() {
+		return reflectiveTemplate.getExampleFilter(example, false).encode();
+	}
+	
+	@Benchmark public String reflectiveWildcardExampleFilter() {
+		return reflectiveTemplate.getExampleFilter(example, true).encode();
+	}
+	
+	@Benchmark public String reflectiveExamplesFilter() {
+		return reflectiveTemplate.getExamplesFilter(examples, false).encode();
+	}
+	
+	@Benchmark public String introspectedExampleFilter() throws Exception {
+		return introspect(example, false).encode();
+	}
+	
+	@Benchmark public String introspectedWildcardExampleFilter() throws Exception {
+		return introspect(example, true).encode();
+	}
+	
+	@Benchmark public String introspectedExamplesFilter() throws Exception {
+		StringBuilder filters = new StringBuilder("(|");
+		for ( LdapEntity entity : examples ) {
+			filters.append(introspect(entity, false).encode());
+		}
+		return filters.append(')').toString();
+	}
+	
+	/**
+	 * Builds the filter the way the template did before the properties were cached.
+	 */
+	private static AndFilter introspect(LdapEntity example, boolean wildcardFilters) throws Exception {
+		AndFilter filter = new AndFilter();
+		BeanInfo info = Introspector.getBeanInfo(example.getClass());
+		for ( PropertyDescriptor pd : info.getPropertyDescriptors() ) {
+			if ( pd.getReadMethod() != null && !LdapEntityProperties.isReservedField(pd.getName()) &&
+					(pd.getPropertyType() == String.class || pd.getPropertyType() == String[].class) ) {
+				Object value = pd.getReadMethod().invoke(example);
+				if ( value instanceof Object[] ) {
+					for ( Object o : (Object[])value ) {
+						addFilter(filter, pd.getName(), o, wildcardFilters);
+					}
+				} else {
+					addFilter(filter, pd.getName(), value, wildcardFilters);
+				}
+			}
+		}
+		return filter;
+	}
+	
+	private static void addFilter(AndFilter filter, String name, Object value, boolean wildcardFilters) {
+		if ( value != null && value.toString().length() > 0 ) {
+			if ( wildcardFilters ) {
+				filter.and(new WhitespaceWildcardsFilter(name, value.toString()));
+			} else {
+				filter.and(new EqualsFilter(name, value.toString()));
+			}
+		}
+	}
+	
+	/**
+	 * Hides the {@code ExampleFilterMapper} methods of a mapper, so the template falls back
+	 * to the properties of the example.
+	 */
+	private static class PlainMapper implements LdapContextMapper {
+		private final LdapContextMapper delegate;
+		
+		public PlainMapper(LdapContextMapper delegate) {
+			this.delegate = delegate;
+		}
+		
+		public DirContextOperations mapToContext(Object object) {
+			return delegate.mapToContext(object);
+		}
+		
+		public void mapToContext(Object object, DirContextOperations context) {
+			delegate.mapToContext(object, context);
+		}
+		
+		public Object mapFromContext(Object ctx) {
+			return delegate.mapFromContext(ctx);
+		}
+		
+		public void mapFromContext(DirContextOperations ctx, Object resultObject) {
+			delegate.mapFromContext(ctx, resultObject);
+		}
+	}
+}
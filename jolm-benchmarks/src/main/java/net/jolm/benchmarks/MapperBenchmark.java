@@ -0,0 +1,72 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import net.jolm.fixture.mappers.PersonMapper;
+import net.jolm.fixture.types.Person;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.ldap.core.DistinguishedName;
+
+/**
+ * Measures the mapping between an LDAP entry and an LDAP Entity by a mapper of the shape 
+ * maven-jolm-plugin generates, which runs once per entry of every search and write.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+	private PersonMapper mapper;
+	private DirContextAdapter context;
+	private Person person;
+	
+	@Setup public void setUp() {
+		mapper = new PersonMapper();
+		context = new DirContextAdapter(new DistinguishedName("cn=john,ou=people"));
+		context.setAttributeValues("objectClass", new String[] {"top", "person"});
+		context.setAttributeValue("cn", "john");
+		context.setAttributeValue("sn", "doe");
+		context.setAttributeValues("description", new String[] {"first", "second", "third"});
+		person = mapper.mapFromContext(context);
+	}
+	
+	@Benchmark public Person mapFromContext() {
+		return mapper.mapFromContext(context);
+	}
+	
+	@Benchmark public DirContextOperations mapToContext() {
+		return mapper.mapToContext(person);
+	}
+}
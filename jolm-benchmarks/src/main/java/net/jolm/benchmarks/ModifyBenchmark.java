@@ -0,0 +1,86 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import net.jolm.JolmLdapTemplate;
+import net.jolm.fixture.InMemoryLdapServer;
+import net.jolm.fixture.types.Person;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures modifying an entry end to end against an embedded in-memory LDAP server, with
+ * the lookup before the modification and without it in blind modify mode, and by the 
+ * changes against a snapshot.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModifyBenchmark {
+	@Param({"false", "true"})
+	private boolean blindModify;
+	
+	private InMemoryLdapServer server;
+	private JolmLdapTemplate template;
+	private Person person;
+	private Person original;
+	private int counter;
+	
+	@Setup(Level.Trial) public void setUp() throws Exception {
+		server = new InMemoryLdapServer();
+		server.start();
+		server.addPeople(100);
+		template = server.createJolmLdapTemplate();
+		template.setBlindModify(blindModify);
+		original = (Person)template.get("cn=person1,ou=people", Person.class);
+		person = (Person)SerializationUtils.clone(original);
+	}
+	
+	@TearDown(Level.Trial) public void tearDown() {
+		server.stop();
+	}
+	
+	@Benchmark public void modify() {
+		person.setSn("sn" + counter++);
+		template.modify(person);
+	}
+	
+	@Benchmark public void modifyChanges() {
+		person.setSn("sn" + counter++);
+		template.modifyChanges(original, person);
+	}
+}
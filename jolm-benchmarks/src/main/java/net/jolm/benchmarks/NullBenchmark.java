@@ -0,0 +1,65 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import net.jolm.Null;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code Null.isNullObject}, which the mappers call for every field written.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NullBenchmark {
+	private Object string = "john";
+	private Object stringArray = new String[] {"first", "second"};
+	private Object byteArray = new byte[] {1, 2, 3};
+	private Object nullStringArray = Null.STRING_ARRAY;
+	
+	@Benchmark public boolean string() {
+		return Null.isNullObject(string);
+	}
+	
+	@Benchmark public boolean stringArray() {
+		return Null.isNullObject(stringArray);
+	}
+	
+	@Benchmark public boolean byteArray() {
+		return Null.isNullObject(byteArray);
+	}
+	
+	@Benchmark public boolean nullStringArray() {
+		return Null.isNullObject(nullStringArray);
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.jolm.JolmLdapTemplate;
+import net.jolm.LdapEntity;
+import net.jolm.LdapEntityCallbackHandler;
+import net.jolm.fixture.InMemoryLdapServer;
+import net.jolm.fixture.types.Person;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares collecting the whole result of a search with streaming it page by page, over
+ * result sets of {@code people} entries. Run {@link #main(String[])}, or the benchmarks jar
+ * with {@code -prof gc}, to get {@code gc.alloc.rate.norm}, the bytes allocated per search.
+ *
+ * <p>The allocation per search grows with the result size either way, what differs is how
+ * long it stays reachable: {@code find} keeps every entity until the list is returned,
+ * {@code forEach} hands each one to the callback and keeps at most a page of
+ * {@code PAGE_SIZE} entries, so the heap the search needs stays flat. The in-memory server
+ * runs in the same JVM, its allocation is the same for all the benchmarks.</p>
+ *
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx1g"})
+public class PagedSearchBenchmark {
+	private static final int PAGE_SIZE = 500;
+	private static final String FILTER = "(objectclass=person)";
+
+	@Param({"1000", "10000", "50000"})
+	private int people;
+
+	private InMemoryLdapServer server;
+	private JolmLdapTemplate template;
+
+	@Setup(Level.Trial) public void setUp() throws Exception {
+		server = new InMemoryLdapServer();
+		server.start();
+		server.addPeople(people);
+		template = server.createJolmLdapTemplate();
+	}
+
+	@TearDown(Level.Trial) public void tearDown() {
+		server.stop();
+	}
+
+	/**
+	 * Collects the result of a single search.
+	 */
+	@Benchmark public List<? extends LdapEntity> collect() {
+		return template.find(InMemoryLdapServer.PEOPLE, FILTER, Person.class);
+	}
+
+	/**
+	 * Collects the result of a paged search.
+	 */
+	@Benchmark public List<? extends LdapEntity> collectPaged() {
+		return template.find(InMemoryLdapServer.PEOPLE, FILTER, null, Person.class, PAGE_SIZE);
+	}
+
+	/**
+	 * Streams the result of a paged search to a callback that drops the entities.
+	 */
+	@Benchmark public void streamPaged(final Blackhole blackhole) {
+		template.forEach(InMemoryLdapServer.PEOPLE, FILTER, null, Person.class, new LdapEntityCallbackHandler() {
+			public void handleLdapEntity(LdapEntity entity) {
+				blackhole.consume(entity);
+			}
+		}, PAGE_SIZE);
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder()
+				.include(PagedSearchBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.jolm.JolmLdapTemplate;
+import net.jolm.LdapEntity;
+import net.jolm.LdapEntityCallbackHandler;
+import net.jolm.fixture.InMemoryLdapServer;
+import net.jolm.fixture.types.Person;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the read operations end to end against an embedded in-memory LDAP server 
+ * holding {@code people} person entries. Run with {@code -prof gc} to compare the 
+ * allocation of the collecting, paged and streaming searches, see {@link PagedSearchBenchmark}
+ * for larger result sets.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+	@Param({"1000"})
+	private int people;
+	
+	private InMemoryLdapServer server;
+	private JolmLdapTemplate template;
+	private Person example;
+	private String[] projection = {"cn"};
+	
+	@Setup(Level.Trial) public void setUp() throws Exception {
+		server = new InMemoryLdapServer();
+		server.start();
+		server.addPeople(people);
+		template = server.createJolmLdapTemplate();
+		example = new Person(null, "odd");
+	}
+	
+	@TearDown(Level.Trial) public void tearDown() {
+		server.stop();
+	}
+	
+	@Benchmark public LdapEntity get() {
+		return template.get("cn=person1,ou=people", Person.class);
+	}
+	
+	@Benchmark public List<? extends LdapEntity> find() {
+		return template.find(InMemoryLdapServer.PEOPLE, "(sn=odd)", Person.class);
+	}
+	
+	@Benchmark public List<? extends LdapEntity> findPaged() {
+		return template.find(InMemoryLdapServer.PEOPLE, "(sn=odd)", null, Person.class, 100);
+	}
+	
+	@Benchmark public void forEach(final Blackhole blackhole) {
+		template.forEach(InMemoryLdapServer.PEOPLE, "(sn=odd)", Person.class, new LdapEntityCallbackHandler() {
+			public void handleLdapEntity(LdapEntity entity) {
+				blackhole.consume(entity);
+			}
+		});
+	}
+	
+	@Benchmark public List<? extends LdapEntity> findByExample() {
+		return template.findByExample(InMemoryLdapServer.PEOPLE, example);
+	}
+	
+	/**
+	 * Lists whole entries with listBindings, dropping the entries that are not mapped.
+	 */
+	@Benchmark public List<? extends LdapEntity> listChildren() {
+		return template.listChildren(InMemoryLdapServer.PEOPLE, Person.class);
+	}
+	
+	/**
+	 * Lists the entries with only the requested attributes returned by the server.
+	 */
+	@Benchmark public List<? extends LdapEntity> listChildrenProjected() {
+		return template.listChildren(InMemoryLdapServer.PEOPLE, Person.class, projection);
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import net.jolm.util.UserPasswordHelper;
+import net.jolm.util.UserPasswordHelper.HashAlg;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures hashing a clear text password into a userPassword value and verifying a clear
+ * text password against it, per hash algorithm.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserPasswordHelperBenchmark {
+	@Param({"MD5", "SHA", "SMD5", "SSHA"})
+	private HashAlg alg;
+	
+	private byte[] salt;
+	private byte[] userPassword;
+	
+	@Setup public void setUp() {
+		salt = alg == HashAlg.SMD5 || alg == HashAlg.SSHA ? "saltsalt".getBytes() : null;
+		userPassword = UserPasswordHelper.clearPassToUserPassword("secret", alg, salt);
+	}
+	
+	@Benchmark public byte[] hash() {
+		return UserPasswordHelper.clearPassToUserPassword("secret", alg, salt);
+	}
+	
+	@Benchmark public boolean verify() {
+		return UserPasswordHelper.verifyPassword("secret", userPassword);
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Asynchronous counterpart of {@link JolmLdapOperations}. Every operation is run on an 
+ * executor and returns a {@code Future} right away, so callers can fan out several LDAP 
+ * operations in parallel and wait for them together. The exceptions thrown by the 
+ * operations are reported by {@code Future.get()} wrapped in {@code ExecutionException}.
+ * 
+ * <p>{@code iterate} has no asynchronous counterpart, the iterator holds its connection
+ * until it is closed by the caller, after the operation returned. Use {@code forEach} 
+ * instead.</p>
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ * 
+ * @see net.jolm.AsyncJolmLdapTemplate
+ */
+public interface AsyncJolmLdapOperations {
+	/**
+	 * @see JolmLdapOperations#create(String, LdapEntity)
+	 */
+	public Future<LdapEntity> create(String parentDn, LdapEntity entity);
+	
+	/**
+	 * @see JolmLdapOperations#modify(String, LdapEntity)
+	 */
+	public Future<Void> modify(String parentDn, LdapEntity entity);
+	
+	/**
+	 * @see JolmLdapOperations#modify(LdapEntity)
+	 */
+	public Future<Void> modify(LdapEntity entity);
+	
+	/**
+	 * @see JolmLdapOperations#modifyChanges(LdapEntity, LdapEntity)
+	 */
+	public Future<Void> modifyChanges(LdapEntity original, LdapEntity entity);
+	
+	/**
+	 * @see JolmLdapOperations#get(String, Class)
+	 */
+	public Future<LdapEntity> get(String dn, Class<? extends LdapEntity> entityClass);
+	
+	/**
+	 * @see JolmLdapOperations#getAll(Collection, Class)
+	 */
+	public Future<Map<String, LdapEntity>> getAll(Collection<String> dns, Class<? extends LdapEntity> entityClass);
+	
+	/**
+	 * @see JolmLdapOperations#findByExample(String, LdapEntity)
+	 */
+	public Future<List<? extends LdapEntity>> findByExample(String base, LdapEntity example);
+	
+	/**
+	 * @see JolmLdapOperations#findByExample(String, LdapEntity, String[])
+	 */
+	public Future<List<? extends LdapEntity>> findByExample(String base, LdapEntity example, String[] attributes);
+	
+	/**
+	 * @see JolmLdapOperations#findByExamples(String, LdapEntity[])
+	 */
+	public Future<List<? extends LdapEntity>> findByExamples(String base, LdapEntity[] examples);
+	
+	/**
+	 * @see JolmLdapOperations#findByExamples(String, LdapEntity[], String[])
+	 */
+	public Future<List<? extends LdapEntity>> findByExamples(String base, LdapEntity[] examples, String[] attributes);
+	
+	/**
+	 * @see JolmLdapOperations#find(String, String, Class)
+	 */
+	public Future<List<? extends LdapEntity>> find(String base, String filter, Class<? extends LdapEntity> entityClass);
+	
+	/**
+	 * @see JolmLdapOperations#find(String, String, String[], Class)
+	 */
+	public Future<List<? extends LdapEntity>> find(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass);
+	
+	/**
+	 * @see JolmLdapOperations#find(String, String, String[], Class, int)
+	 */
+	public Future<List<? extends LdapEntity>> find(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, int pageSize);
+	
+	/**
+	 * @see JolmLdapOperations#findPolymorphic(String, String)
+	 */
+	public Future<List<? extends LdapEntity>> findPolymorphic(String base, String filter);
+	
+	/**
+	 * @see JolmLdapOperations#findPolymorphic(String, String, String[])
+	 */
+	public Future<List<? extends LdapEntity>> findPolymorphic(String base, String filter, String[] attributes);
+	
+	/**
+	 * @see JolmLdapOperations#findSorted(String, String, String[], Class, String, boolean)
+	 */
+	public Future<List<? extends LdapEntity>> findSorted(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, String sortKey, boolean ascending);
+	
+	/**
+	 * @see JolmLdapOperations#findPage(String, String, String[], Class, String, boolean, int, int)
+	 */
+	public Future<LdapEntityPage> findPage(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, String sortKey, boolean ascending, int offset, int count);
+	
+	/**
+	 * @see JolmLdapOperations#forEach(String, String, Class, LdapEntityCallbackHandler)
+	 */
+	public Future<Void> forEach(String base, String filter, Class<? extends LdapEntity> entityClass, LdapEntityCallbackHandler callbackHandler);
+	
+	/**
+	 * @see JolmLdapOperations#forEach(String, String, String[], Class, LdapEntityCallbackHandler)
+	 */
+	public Future<Void> forEach(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, LdapEntityCallbackHandler callbackHandler);
+	
+	/**
+	 * @see JolmLdapOperations#forEach(String, String, String[], Class, LdapEntityCallbackHandler, int)
+	 */
+	public Future<Void> forEach(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, LdapEntityCallbackHandler callbackHandler, int pageSize);
+	
+	/**
+	 * @see JolmLdapOperations#listChildren(String, Class)
+	 */
+	public Future<List<? extends LdapEntity>> listChildren(String baseDn, Class<? extends LdapEntity> childEntityClass);
+	
+	/**
+	 * @see JolmLdapOperations#listChildren(String, Class, String[])
+	 */
+	public Future<List<? extends LdapEntity>> listChildren(String baseDn, Class<? extends LdapEntity> childEntityClass, String[] attributes);
+	
+	/**
+	 * @see JolmLdapOperations#loadTree(String, Class, int)
+	 */
+	public Future<LdapEntity> loadTree(String dn, Class<? extends LdapEntity> entityClass, int depth);
+	
+	/**
+	 * @see JolmLdapOperations#delete(String)
+	 */
+	public Future<Void> delete(String dn);
+	
+	/**
+	 * @see JolmLdapOperations#deleteRecursively(String)
+	 */
+	public Future<Void> deleteRecursively(String dn);
+	
+	/**
+	 * @see JolmLdapOperations#deleteSubtree(String, LdapBatchProgressHandler)
+	 */
+	public Future<LdapBatchResult> deleteSubtree(String dn, LdapBatchProgressHandler progressHandler);
+	
+	/**
+	 * @see JolmLdapOperations#createAll(List)
+	 */
+	public Future<LdapBatchResult> createAll(List<? extends LdapEntity> entities);
+	
+	/**
+	 * @see JolmLdapOperations#modifyAll(List)
+	 */
+	public Future<LdapBatchResult> modifyAll(List<? extends LdapEntity> entities);
+	
+	/**
+	 * @see JolmLdapOperations#deleteAll(List)
+	 */
+	public Future<LdapBatchResult> deleteAll(List<String> dns);
+}
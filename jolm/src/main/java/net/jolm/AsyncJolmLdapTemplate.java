@@ -0,0 +1,363 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Runs the operations of a {@code JolmLdapOperations} asynchronously on an executor. 
+ * 
+ * <p>At most {@code maxConcurrency} operations of this template are run against the LDAP
+ * server at the same time, whatever the executor is, so fanning out doesn't exhaust the
+ * connections of the {@code ContextSource}. The limit is per template, not per 
+ * {@code ContextSource}: templates sharing a {@code ContextSource}, and the synchronous
+ * operations run on it directly, are not counted, so share one template or size the 
+ * connection pool for the sum of their limits. If no executor is set, a fixed pool of 
+ * {@code maxConcurrency} daemon threads is created and shut down by {@link #destroy()}.</p>
+ * 
+ * <p>The writes run on the executor's threads, so the read-your-writes window of a
+ * {@code ReplicatedContextSource} is not started for the calling thread. Call its 
+ * {@code recordWrite()} once the write is done if the caller has to read it back.</p>
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public class AsyncJolmLdapTemplate implements AsyncJolmLdapOperations, DisposableBean {
+	public static final int DEFAULT_MAX_CONCURRENCY = 8;
+	
+	private final JolmLdapOperations jolmLdapOperations;
+	private final Semaphore concurrencyLimit;
+	private final ExecutorService executorService;
+	private final boolean ownExecutorService;
+	
+	public AsyncJolmLdapTemplate(JolmLdapOperations jolmLdapOperations) {
+		this(jolmLdapOperations, DEFAULT_MAX_CONCURRENCY);
+	}
+	
+	public AsyncJolmLdapTemplate(JolmLdapOperations jolmLdapOperations, int maxConcurrency) {
+		this(jolmLdapOperations, maxConcurrency, null);
+	}
+	
+	/**
+	 * @param jolmLdapOperations The operations to run asynchronously.
+	 * @param maxConcurrency The maximum number of operations of this template run at the 
+	 * 		same time.
+	 * @param executorService The executor to run the operations on. A fixed pool of 
+	 * 		{@code maxConcurrency} threads is used if it is null.
+	 */
+	public AsyncJolmLdapTemplate(JolmLdapOperations jolmLdapOperations, int maxConcurrency, ExecutorService executorService) {
+		if ( jolmLdapOperations == null ) {
+			throw new IllegalArgumentException("JolmLdapOperations is required.");
+		}
+		if ( maxConcurrency <= 0 ) {
+			throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+		}
+		this.jolmLdapOperations = jolmLdapOperations;
+		this.concurrencyLimit = new Semaphore(maxConcurrency, true);
+		this.ownExecutorService = executorService == null;
+		this.executorService = ownExecutorService ? Executors.newFixedThreadPool(maxConcurrency, new DaemonThreadFactory()) : executorService;
+	}
+	
+	public Future<LdapEntity> create(final String parentDn, final LdapEntity entity) {
+		return submit(new Callable<LdapEntity>() {
+			public LdapEntity call() {
+				return jolmLdapOperations.create(parentDn, entity);
+			}
+		});
+	}
+	
+	public Future<Void> modify(final String parentDn, final LdapEntity entity) {
+		return submit(new Callable<Void>() {
+			public Void call() {
+				jolmLdapOperations.modify(parentDn, entity);
+				return null;
+			}
+		});
+	}
+	
+	public Future<Void> modify(final LdapEntity entity) {
+		return submit(new Callable<Void>() {
+			public Void call() {
+				jolmLdapOperations.modify(entity);
+				return null;
+			}
+		});
+	}
+	
+	public Future<Void> modifyChanges(final LdapEntity original, final LdapEntity entity) {
+		return submit(new Callable<Void>() {
+			public Void call() {
+				jolmLdapOperations.modifyChanges(original, entity);
+				return null;
+			}
+		});
+	}
+	
+	public Future<LdapEntity> get(final String dn, final Class<? extends LdapEntity> entityClass) {
+		return submit(new Callable<LdapEntity>() {
+			public LdapEntity call() {
+				return jolmLdapOperations.get(dn, entityClass);
+			}
+		});
+	}
+	
+	public Future<Map<String, LdapEntity>> getAll(final Collection<String> dns, final Class<? extends LdapEntity> entityClass) {
+		return submit(new Callable<Map<String, LdapEntity>>() {
+			public Map<String, LdapEntity> call() {
+				return jolmLdapOperations.getAll(dns, entityClass);
+			}
+		});
+	}
+	
+	public Future<List<? extends LdapEntity>> findByExample(final String base, final LdapEntity example) {
+		return submit(new Callable<List<? extends LdapEntity>>() {
+			public List<? extends LdapEntity> call() {
+				return jolmLdapOperations.findByExample(base, example);
+			}
+		});
+	}
+	
+	public Future<List<? extends LdapEntity>> findByExample(final String base, final LdapEntity example, final String[] attributes) {
+		return submit(new Callable<List<? extends LdapEntity>>() {
+			public List<? extends LdapEntity> call() {
+				return jolmLdapOperations.findByExample(base, example, attributes);
+			}
+		});
+	}
+	
+	public Future<List<? extends LdapEntity>> findByExamples(final String base, final LdapEntity[] examples) {
+		return submit(new Callable<List<? extends LdapEntity>>() {
+			public List<? extends LdapEntity> call() {
+				return jolmLdapOperations.findByExamples(base, examples);
+			}
+		});
+	}
+	
+	public Future<List<? extends LdapEntity>> findByExamples(final String base, final LdapEntity[] examples, final String[] attributes) {
+		return submit(new Callable<List<? extends LdapEntity>>() {
+			public List<? extends LdapEntity> call() {
+				return jolmLdapOperations.findByExamples(base, examples, attributes);
+			}
+		});
+	}
+	
+	public Future<List<? extends LdapEntity>> find(final String base, final String filter, final Class<? extends LdapEntity> entityClass) {
+		return submit(new Callable<List<? extends LdapEntity>>() {
+			public List<? extends LdapEntity> call() {
+				return jolmLdapOperations.find(base, filter, entityClass);
+			}
+		});
+	}
+	
+	public Future<List<? extends LdapEntity>> find(final String base, final String filter, final String[] attributes, final Class<? extends LdapEntity> entityClass) {
+		return submit(new Callable<List<? extends LdapEntity>>() {
+			public List<? extends LdapEntity> call() {
+				return jolmLdapOperations.find(base, filter, attributes, entityClass);
+			}
+		});
+	}
+	
+	public Future<List<? extends LdapEntity>> find(final String base, final String filter, final String[] attributes, final Class<? extends LdapEntity> entityClass, final int pageSize) {
+		return submit(new Callable<List<? extends LdapEntity>>() {
+			public List<? extends LdapEntity> call() {
+				return jolmLdapOperations.find(base, filter, attributes, entityClass, pageSize);
+			}
+		});
+	}
+	
+	public Future<List<? extends LdapEntity>> findPolymorphic(final String base, final String filter) {
+		return submit(new Callable<List<? extends LdapEntity>>() {
+			public List<? extends LdapEntity> call() {
+				return jolmLdapOperations.findPolymorphic(base, filter);
+			}
+		});
+	}
+	
+	public Future<List<? extends LdapEntity>> findPolymorphic(final String base, final String filter, final String[] attributes) {
+		return submit(new Callable<List<? extends LdapEntity>>() {
+			public List<? extends LdapEntity> call() {
+				return jolmLdapOperations.findPolymorphic(base, filter, attributes);
+			}
+		});
+	}
+	
+	public Future<List<? extends LdapEntity>> findSorted(final String base, final String filter, final String[] attributes, final Class<? extends LdapEntity> entityClass, final String sortKey, final boolean ascending) {
+		return submit(new Callable<List<? extends LdapEntity>>() {
+			public List<? extends LdapEntity> call() {
+				return jolmLdapOperations.findSorted(base, filter, attributes, entityClass, sortKey, ascending);
+			}
+		});
+	}
+	
+	public Future<LdapEntityPage> findPage(final String base, final String filter, final String[] attributes, final Class<? extends LdapEntity> entityClass, final String sortKey, final boolean ascending, final int offset, final int count) {
+		return submit(new Callable<LdapEntityPage>() {
+			public LdapEntityPage call() {
+				return jolmLdapOperations.findPage(base, filter, attributes, entityClass, sortKey, ascending, offset, count);
+			}
+		});
+	}
+	
+	public Future<Void> forEach(final String base, final String filter, final Class<? extends LdapEntity> entityClass, final LdapEntityCallbackHandler callbackHandler) {
+		return submit(new Callable<Void>() {
+			public Void call() {
+				jolmLdapOperations.forEach(base, filter, entityClass, callbackHandler);
+				return null;
+			}
+		});
+	}
+	
+	public Future<Void> forEach(final String base, final String filter, final String[] attributes, final Class<? extends LdapEntity> entityClass, final LdapEntityCallbackHandler callbackHandler) {
+		return submit(new Callable<Void>() {
+			public Void call() {
+				jolmLdapOperations.forEach(base, filter, attributes, entityClass, callbackHandler);
+				return null;
+			}
+		});
+	}
+	
+	public Future<Void> forEach(final String base, final String filter, final String[] attributes, final Class<? extends LdapEntity> entityClass, final LdapEntityCallbackHandler callbackHandler, final int pageSize) {
+		return submit(new Callable<Void>() {
+			public Void call() {
+				jolmLdapOperations.forEach(base, filter, attributes, entityClass, callbackHandler, pageSize);
+				return null;
+			}
+		});
+	}
+	
+	public Future<List<? extends LdapEntity>> listChildren(final String baseDn, final Class<? extends LdapEntity> childEntityClass) {
+		return submit(new Callable<List<? extends LdapEntity>>() {
+			public List<? extends LdapEntity> call() {
+				return jolmLdapOperations.listChildren(baseDn, childEntityClass);
+			}
+		});
+	}
+	
+	public Future<List<? extends LdapEntity>> listChildren(final String baseDn, final Class<? extends LdapEntity> childEntityClass, final String[] attributes) {
+		return submit(new Callable<List<? extends LdapEntity>>() {
+			public List<? extends LdapEntity> call() {
+				return jolmLdapOperations.listChildren(baseDn, childEntityClass, attributes);
+			}
+		});
+	}
+	
+	public Future<LdapEntity> loadTree(final String dn, final Class<? extends LdapEntity> entityClass, final int depth) {
+		return submit(new Callable<LdapEntity>() {
+			public LdapEntity call() {
+				return jolmLdapOperations.loadTree(dn, entityClass, depth);
+			}
+		});
+	}
+	
+	public Future<Void> delete(final String dn) {
+		return submit(new Callable<Void>() {
+			public Void call() {
+				jolmLdapOperations.delete(dn);
+				return null;
+			}
+		});
+	}
+	
+	public Future<Void> deleteRecursively(final String dn) {
+		return submit(new Callable<Void>() {
+			public Void call() {
+				jolmLdapOperations.deleteRecursively(dn);
+				return null;
+			}
+		});
+	}
+	
+	public Future<LdapBatchResult> deleteSubtree(final String dn, final LdapBatchProgressHandler progressHandler) {
+		return submit(new Callable<LdapBatchResult>() {
+			public LdapBatchResult call() {
+				return jolmLdapOperations.deleteSubtree(dn, progressHandler);
+			}
+		});
+	}
+	
+	public Future<LdapBatchResult> createAll(final List<? extends LdapEntity> entities) {
+		return submit(new Callable<LdapBatchResult>() {
+			public LdapBatchResult call() {
+				return jolmLdapOperations.createAll(entities);
+			}
+		});
+	}
+	
+	public Future<LdapBatchResult> modifyAll(final List<? extends LdapEntity> entities) {
+		return submit(new Callable<LdapBatchResult>() {
+			public LdapBatchResult call() {
+				return jolmLdapOperations.modifyAll(entities);
+			}
+		});
+	}
+	
+	public Future<LdapBatchResult> deleteAll(final List<String> dns) {
+		return submit(new Callable<LdapBatchResult>() {
+			public LdapBatchResult call() {
+				return jolmLdapOperations.deleteAll(dns);
+			}
+		});
+	}
+	
+	public JolmLdapOperations getJolmLdapOperations() {
+		return jolmLdapOperations;
+	}
+	
+	/**
+	 * Shuts down the executor if it was created by this template. Operations already 
+	 * submitted are still completed.
+	 */
+	public void destroy() {
+		if ( ownExecutorService ) {
+			executorService.shutdown();
+		}
+	}
+	
+	private <T> Future<T> submit(final Callable<T> operation) {
+		return executorService.submit(new Callable<T>() {
+			public T call() throws Exception {
+				concurrencyLimit.acquire();
+				try {
+					return operation.call();
+				} finally {
+					concurrencyLimit.release();
+				}
+			}
+		});
+	}
+	
+	private static class DaemonThreadFactory implements ThreadFactory {
+		private static final AtomicInteger poolNumber = new AtomicInteger();
+		private final int pool = poolNumber.incrementAndGet();
+		private final AtomicInteger threadNumber = new AtomicInteger();
+		
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "jolm-async-" + pool + "-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.naming.directory.BasicAttribute;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.ModificationItem;
+
+import org.springframework.ldap.core.DirContextAdapter;
+
+/**
+ * Collects the attributes set by {@code LdapContextMapper.mapToContext} as replace 
+ * modifications, without knowing the current state of the entry. An attribute set to 
+ * null, i.e. mapped from a {@link net.jolm.Null} value, becomes a replace with no values, 
+ * which removes the attribute if it exists and is a no-op otherwise.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+class BlindModificationContext extends DirContextAdapter {
+	private final Map<String, ModificationItem> modificationItems = new LinkedHashMap<String, ModificationItem>();
+	
+	public void setAttributeValue(String name, Object value) {
+		setAttributeValues(name, value == null ? null : new Object[] {value});
+	}
+	
+	public void setAttributeValues(String name, Object[] values) {
+		BasicAttribute attribute = new BasicAttribute(name);
+		if ( values != null ) {
+			for ( Object value : values ) {
+				attribute.add(value);
+			}
+		}
+		modificationItems.put(name.toLowerCase(), new ModificationItem(DirContext.REPLACE_ATTRIBUTE, attribute));
+	}
+	
+	public void setAttributeValues(String name, Object[] values, boolean orderMatters) {
+		setAttributeValues(name, values);
+	}
+	
+	public ModificationItem[] getModificationItems() {
+		return modificationItems.values().toArray(new ModificationItem[modificationItems.size()]);
+	}
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm;
+
+/**
+ * The interface implemented by LDAP entities generated with dirty attribute tracking 
+ * enabled, i.e. {@code trackDirtyAttributes} of maven-jolm-plugin. The setters of such 
+ * entities mark their attributes dirty, as does the constructor taking the required 
+ * attributes, and the generated mappers only map the dirty attributes when the entity is 
+ * modified, so unchanged attributes are never sent to the LDAP server. All the attributes 
+ * with values are still mapped when the entity is created.
+ * <p/>
+ * Entities loaded by {@code LdapContextMapper} start clean. {@code JolmLdapTemplate} clears 
+ * the dirty attributes once the entity has been created or modified successfully. 
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public interface DirtyTrackingLdapEntity extends LdapEntity {
+	/**
+	 * @return true if any attribute has been set since the entity was loaded, created,
+	 * 		or modified.
+	 */
+	public boolean hasDirtyAttributes();
+	
+	/**
+	 * Marks all the attributes clean.
+	 */
+	public void clearDirtyAttributes();
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm;
+
+import org.springframework.ldap.filter.AndFilter;
+
+/**
+ * Optional extension of {@code LdapContextMapper} implemented by the mappers generated 
+ * by maven-jolm-plugin. When a mapper implements it, {@code JolmLdapTemplate} builds 
+ * the query-by-example filter with it instead of introspecting the LDAP Entity.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public interface ExampleFilterMapper extends LdapContextMapper {
+	/**
+	 * Builds the filter from the {@code String} and {@code String[]} fields that 
+	 * have value within the example LDAP Entity.
+	 * 
+	 * @param example The LDAP Entity that has query fields set properly.
+	 * @param wildcardFilters Indicates whether to use {@code WhitespaceWildcardsFilter} or 
+	 * 		not. EqualsFilter will be used when it is false.
+	 * @return The filter.
+	 */
+	public AndFilter toExampleFilter(Object example, boolean wildcardFilters);
+	
+	/**
+	 * Adds the fields that have value within the example LDAP Entity to the filter 
+	 * passed in. This method is to support LdapContextMapper inheritence.
+	 * 
+	 * @param example The LDAP Entity that has query fields set properly.
+	 * @param filter The filter to be populated.
+	 * @param wildcardFilters Indicates whether to use {@code WhitespaceWildcardsFilter} or 
+	 * 		not. EqualsFilter will be used when it is false.
+	 */
+	public void toExampleFilter(Object example, AndFilter filter, boolean wildcardFilters);
+}
@@ -15,7 +15,9 @@
  */
 package net.jolm;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Defines list of convenient CRUD operations.
@@ -51,6 +53,17 @@ public interface JolmLdapOperations {
 	 * @throws NameNotFoundException when the LDAP Entity doesn't exist.
 	 */
 	public void modify(LdapEntity entity);
+	
+	/**
+	 * Modifies only the attributes of the LDAP Entity that differ from {@code original},
+	 * a snapshot of the entity taken when it was loaded. The DN field of the entity has 
+	 * to be set. The modification fails if another client changed one of the modified
+	 * attributes since {@code original} was loaded.
+	 * 
+	 * @param original The LDAP Entity as it was loaded.
+	 * @param entity The modified LDAP Entity.
+	 */
+	public void modifyChanges(LdapEntity original, LdapEntity entity);
 	/**
 	 * Finds the LDAP Entity by DN. 
 	 * 
@@ -60,6 +73,15 @@ public interface JolmLdapOperations {
 	 * @throws NameNotFoundException if the DN doesn't exist in LDAP server.
 	 */
 	public LdapEntity get(String dn, Class<? extends LdapEntity> entityClass);
+	/**
+	 * Finds the LDAP Entities by DNs. Duplicated DNs are looked up only once.
+	 * 
+	 * @param dns The DNs of the LDAP Entities.
+	 * @param entityClass The LDAP Entity Class.
+	 * @return The LDAP Entities keyed by the DNs as passed in. The DNs that don't exist
+	 * 		in LDAP server are left out.
+	 */
+	public Map<String, LdapEntity> getAll(Collection<String> dns, Class<? extends LdapEntity> entityClass);
 	/**
 	 * Finds the LDAP Entities by Example. Uses AndFilter and EqualsFilter by default.
 	 * 
@@ -123,6 +145,121 @@ public interface JolmLdapOperations {
 	 */
 	public List<? extends LdapEntity> find(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass);
 	
+	/**
+	 * Finds the LDAP entities by LDAP search filter, retrieving the results in pages with
+	 * the paged results control.
+	 * 
+	 * @param base The base.
+	 * @param filter LDAP filter.
+	 * @param attributes List of attributes to return.
+	 * @param entityClass The LDAP Entity Class.
+	 * @param pageSize The page size. Paging is disabled when it is 0.
+	 * @return List of LDAP Entities.
+	 */
+	public List<? extends LdapEntity> find(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, int pageSize);
+	
+	/**
+	 * Finds the LDAP entities of any mapped object class by LDAP search filter. Each entry
+	 * is mapped to the most specific LDAP Entity class of its object classes.
+	 * 
+	 * @param base The base.
+	 * @param filter LDAP filter.
+	 * @return List of LDAP Entities of different classes.
+	 */
+	public List<? extends LdapEntity> findPolymorphic(String base, String filter);
+	
+	/**
+	 * Finds the LDAP entities of any mapped object class by LDAP search filter. Each entry
+	 * is mapped to the most specific LDAP Entity class of its object classes.
+	 * 
+	 * @param base The base.
+	 * @param filter LDAP filter.
+	 * @param attributes Specifies list of attributes to return back. All the attributes 
+	 * 		will be returned if it is null. 
+	 * @return List of LDAP Entities of different classes.
+	 */
+	public List<? extends LdapEntity> findPolymorphic(String base, String filter, String[] attributes);
+	
+	/**
+	 * Finds the LDAP entities by LDAP search filter, sorted by the server with the server
+	 * side sort control.
+	 * 
+	 * @param base The base.
+	 * @param filter LDAP filter.
+	 * @param attributes List of attributes to return.
+	 * @param entityClass The LDAP Entity Class.
+	 * @param sortKey The attribute to sort by.
+	 * @param ascending Indicates whether to sort in ascending or descending order.
+	 * @return List of LDAP Entities in sorted order.
+	 */
+	public List<? extends LdapEntity> findSorted(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, 
+			String sortKey, boolean ascending);
+	
+	/**
+	 * Finds one page of the LDAP entities matched by LDAP search filter, using the server
+	 * side sort and the virtual list view controls.
+	 * 
+	 * @param base The base.
+	 * @param filter LDAP filter.
+	 * @param attributes List of attributes to return.
+	 * @param entityClass The LDAP Entity Class.
+	 * @param sortKey The attribute to sort by.
+	 * @param ascending Indicates whether to sort in ascending or descending order.
+	 * @param offset The 0-based position of the first entry of the page in the sorted results.
+	 * @param count The maximum number of entries in the page.
+	 * @return The page of LDAP Entities with the estimated total count.
+	 */
+	public LdapEntityPage findPage(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, 
+			String sortKey, boolean ascending, int offset, int count);
+	
+	/**
+	 * Finds the LDAP entities by LDAP search filter and hands them to the callback handler
+	 * one at a time. The results are not collected in memory.
+	 * 
+	 * @param base The base.
+	 * @param filter LDAP filter.
+	 * @param entityClass The LDAP Entity Class.
+	 * @param callbackHandler The handler that receives each LDAP Entity found.
+	 */
+	public void forEach(String base, String filter, Class<? extends LdapEntity> entityClass, LdapEntityCallbackHandler callbackHandler);
+	
+	/**
+	 * Finds the LDAP entities by LDAP search filter and hands them to the callback handler
+	 * one at a time. The results are not collected in memory.
+	 * 
+	 * @param base The base.
+	 * @param filter LDAP filter.
+	 * @param attributes List of attributes to return.
+	 * @param entityClass The LDAP Entity Class.
+	 * @param callbackHandler The handler that receives each LDAP Entity found.
+	 */
+	public void forEach(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, LdapEntityCallbackHandler callbackHandler);
+	
+	/**
+	 * Finds the LDAP entities by LDAP search filter and hands them to the callback handler
+	 * one at a time, retrieving the results in pages with the paged results control.
+	 * 
+	 * @param base The base.
+	 * @param filter LDAP filter.
+	 * @param attributes List of attributes to return.
+	 * @param entityClass The LDAP Entity Class.
+	 * @param callbackHandler The handler that receives each LDAP Entity found.
+	 * @param pageSize The page size. Paging is disabled when it is 0.
+	 */
+	public void forEach(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, LdapEntityCallbackHandler callbackHandler, int pageSize);
+	
+	/**
+	 * Finds the LDAP entities by LDAP search filter and returns an iterator that maps the
+	 * results one at a time. The iterator must be closed if it is not exhausted.
+	 * 
+	 * @param base The base.
+	 * @param filter LDAP filter.
+	 * @param attributes List of attributes to return.
+	 * @param entityClass The LDAP Entity Class.
+	 * @return The iterator over the LDAP Entities found.
+	 */
+	public LdapEntityIterator iterate(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass);
+	
 	/**
 	 * List the children of a specific objectClass under an entity identified by baseDn.
 	 * 
@@ -144,6 +281,18 @@ public interface JolmLdapOperations {
 	 */
 	public List<? extends LdapEntity> listChildren(String baseDn, Class<? extends LdapEntity> childEntityClass, String[] attributes);
 	
+	/**
+	 * Loads the LDAP Entity with its descendants and populates the child arrays of the
+	 * loaded entities. Depths other than 0 and 1 transfer the whole subtree. 
+	 * 
+	 * @param dn The DN of the root LDAP Entity.
+	 * @param entityClass The LDAP Entity Class of the root.
+	 * @param depth The number of levels to load below the root, negative for all levels.
+	 * @return The root LDAP Entity.
+	 * @throws NameNotFoundException when the DN doesn't exist
+	 */
+	public LdapEntity loadTree(String dn, Class<? extends LdapEntity> entityClass, int depth);
+	
 	/**
 	 * Deletes the LDAP Entity. The entity must not have any children. If the 
 	 * entity could have children, use deleteRecursively method instead.
@@ -160,4 +309,41 @@ public interface JolmLdapOperations {
 	 * @throws NameNotFoundException when the DN doesn't exist
 	 */
 	public void deleteRecursively(String dn);
+	
+	/**
+	 * Deletes the LDAP Entity and all its descendants entry by entry, deepest first, with 
+	 * the entries of each level deleted in parallel. Running it again after a failure or an 
+	 * interruption deletes what is left.
+	 * 
+	 * @param dn The DN of the LDAP Entity.
+	 * @param progressHandler Called after each level is deleted. Can be null.
+	 * @return The outcome per DN.
+	 * @throws NameNotFoundException when the DN doesn't exist
+	 */
+	public LdapBatchResult deleteSubtree(String dn, LdapBatchProgressHandler progressHandler);
+	
+	/**
+	 * Creates the LDAP Entities in batch, parents before their children. The {@code dn}
+	 * field of each entity has to be set.
+	 * 
+	 * @param entities The LDAP Entities.
+	 * @return The outcome per DN.
+	 */
+	public LdapBatchResult createAll(List<? extends LdapEntity> entities);
+	
+	/**
+	 * Modifies the LDAP Entities in batch. The {@code dn} field of each entity has to be set.
+	 * 
+	 * @param entities The LDAP Entities.
+	 * @return The outcome per DN.
+	 */
+	public LdapBatchResult modifyAll(List<? extends LdapEntity> entities);
+	
+	/**
+	 * Deletes the LDAP Entities in batch, children before their parents.
+	 * 
+	 * @param dns The DNs of the LDAP Entities.
+	 * @return The outcome per DN.
+	 */
+	public LdapBatchResult deleteAll(List<String> dns);
 }
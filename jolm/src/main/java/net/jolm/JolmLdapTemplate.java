@@ -15,34 +15,80 @@
  */
 package net.jolm;
 
-import java.beans.BeanInfo;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.naming.InvalidNameException;
 import javax.naming.NameAlreadyBoundException;
+import javax.naming.NameClassPair;
 import javax.naming.NameNotFoundException;
+import javax.naming.NamingEnumeration;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.ModificationItem;
 import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.PagedResultsControl;
+import javax.naming.ldap.PagedResultsResponseControl;
+import javax.naming.ldap.SortControl;
+import javax.naming.ldap.SortKey;
+
+import net.jolm.control.TreeDeleteControl;
+import net.jolm.control.VirtualListViewControl;
+import net.jolm.control.VirtualListViewResponseControl;
+import net.jolm.metrics.LdapMetrics;
+import net.jolm.metrics.NoOpLdapMetrics;
+import net.jolm.routing.ReplicatedContextSource;
+import net.jolm.routing.TrackedContext;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.ldap.UncategorizedLdapException;
+import org.springframework.ldap.core.ContextExecutor;
+import org.springframework.ldap.core.ContextMapper;
+import org.springframework.ldap.core.ContextMapperCallbackHandler;
 import org.springframework.ldap.core.ContextSource;
+import org.springframework.ldap.core.DirContextAdapter;
 import org.springframework.ldap.core.DirContextOperations;
 import org.springframework.ldap.core.DistinguishedName;
 import org.springframework.ldap.core.LdapOperations;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.core.NameClassPairCallbackHandler;
 import org.springframework.ldap.core.LdapRdn;
+import org.springframework.ldap.core.LdapRdnComponent;
 import org.springframework.ldap.core.simple.SimpleLdapTemplate;
 import org.springframework.ldap.filter.AndFilter;
 import org.springframework.ldap.filter.EqualsFilter;
 import org.springframework.ldap.filter.OrFilter;
 import org.springframework.ldap.filter.WhitespaceWildcardsFilter;
+import org.springframework.ldap.pool.DelegatingLdapContext;
+import org.springframework.ldap.support.LdapUtils;
 import org.springframework.util.Assert;
 
 /**
@@ -52,9 +98,34 @@ import org.springframework.util.Assert;
  */
 public class JolmLdapTemplate extends SimpleLdapTemplate implements JolmLdapOperations, InitializingBean {
 	private final static Log log = LogFactory.getLog(JolmLdapTemplate.class);
+	private final static Log slowQueryLog = LogFactory.getLog(JolmLdapTemplate.class.getName() + ".slowQuery");
+	private static final int PARENTS_FIRST = 1;
+	private static final int CHILDREN_FIRST = -1;
+	private static final int ANY_ORDER = 0;
 	private static final boolean RETURN_OBJ_FLAG = true;
-	private String contextMappersPackage;
+	private static final String CHILDREN_FILTER = "(objectclass=*)";
+	private static final String OBJECT_CLASS_ATTRIBUTE = "objectclass";
+	//Asks the server to return no attributes (RFC 4511). 
+	private static final String NO_ATTRIBUTES = "1.1";
+	//The result code in the explanation of the exceptions of JNDI.
+	private static final String UNAVAILABLE_CRITICAL_EXTENSION = "error code 12 ";
+	//Stays below the default size limits of the common servers, e.g. 500 of OpenLDAP.
+	private static final int DEFAULT_DELETE_PAGE_SIZE = 500;
+	private final LdapContextMapperRegistry contextMapperRegistry = new LdapContextMapperRegistry();
+	private boolean preloadContextMappers = true;
 	private int searchTimeoutInMs;
+	private int pageSize;
+	private boolean blindModify;
+	private boolean strictDelete = true;
+	private boolean treeDelete = true;
+	private volatile Boolean treeDeleteSupported;
+	private LdapMetrics metrics = NoOpLdapMetrics.INSTANCE;
+	private int slowQueryThresholdInMs = -1;
+	private int batchConcurrency = 4;
+	private int examplesChunkSize = 100;
+	private boolean objectClassFilter = true;
+	private final ConcurrentMap<Class<?>, String> entityObjectClasses = new ConcurrentHashMap<Class<?>, String>();
+	private ExecutorService batchExecutorService;
 	
 	public int getSearchTimeoutInMs() {
 		return searchTimeoutInMs;
@@ -64,6 +135,151 @@ public class JolmLdapTemplate extends SimpleLdapTemplate implements JolmLdapOper
 		this.searchTimeoutInMs = searchTimeoutInMs;
 	}
 
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Sets the page size used to retrieve search results with the paged results control 
+	 * (RFC 2696). Paging is disabled when it is 0, which is the default.
+	 */
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}
+
+	public boolean isBlindModify() {
+		return blindModify;
+	}
+
+	/**
+	 * Sets whether {@code modify} sends the fields of the entity as replace modifications
+	 * right away, instead of looking up the entry first to compute the modifications. It 
+	 * saves a round trip per modify, but a modify of a nonexistent entry fails with the 
+	 * server's error rather than the lookup's.
+	 */
+	public void setBlindModify(boolean blindModify) {
+		this.blindModify = blindModify;
+	}
+
+	public boolean isStrictDelete() {
+		return strictDelete;
+	}
+	
+	/**
+	 * Sets whether {@code delete} and {@code deleteRecursively} throw 
+	 * {@code NameNotFoundException} when the DN doesn't exist. JNDI reports deleting a 
+	 * nonexistent entry under an existing parent as success, so the DN is checked first by 
+	 * an object scope search that returns no attributes. With it disabled, a delete is a 
+	 * single round trip and deleting a nonexistent entry does nothing. It is enabled by default.
+	 */
+	public void setStrictDelete(boolean strictDelete) {
+		this.strictDelete = strictDelete;
+	}
+	
+	public boolean isTreeDelete() {
+		return treeDelete;
+	}
+	
+	/**
+	 * Sets whether {@code deleteRecursively} asks the server to delete the whole subtree in
+	 * one operation with the Tree Delete control. If the server rejects the control as an
+	 * unavailable critical extension, the entries are deleted one by one from then on. If it
+	 * refuses a single tree delete otherwise, e.g. unwilling to perform it on a subtree, the
+	 * entries of that subtree only are deleted one by one. It is enabled by default.
+	 */
+	public void setTreeDelete(boolean treeDelete) {
+		this.treeDelete = treeDelete;
+	}
+	
+	public int getBatchConcurrency() {
+		return batchConcurrency;
+	}
+
+	/**
+	 * Sets the maximum number of operations of a batch that run in parallel, thus the 
+	 * maximum number of connections a batch takes from the {@code ContextSource}. Batches
+	 * run serially when it is 1. Ignored if {@code batchExecutorService} is set.
+	 */
+	public void setBatchConcurrency(int batchConcurrency) {
+		Assert.isTrue(batchConcurrency > 0, "batchConcurrency must be positive");
+		this.batchConcurrency = batchConcurrency;
+	}
+
+	public int getExamplesChunkSize() {
+		return examplesChunkSize;
+	}
+
+	/**
+	 * Sets the maximum number of examples {@code findByExamples} puts in one {@code OrFilter}. 
+	 * Larger example arrays are split into chunks that are searched in parallel by up to 
+	 * {@code batchConcurrency} threads, and the results are merged by DN. Chunking is 
+	 * disabled when it is 0.
+	 */
+	public void setExamplesChunkSize(int examplesChunkSize) {
+		Assert.isTrue(examplesChunkSize >= 0, "examplesChunkSize can not be negative");
+		this.examplesChunkSize = examplesChunkSize;
+	}
+
+	public boolean isObjectClassFilter() {
+		return objectClassFilter;
+	}
+	
+	/**
+	 * Sets whether the searches for an LDAP Entity class AND the object class of the entity 
+	 * class into the search filter, e.g. {@code (&(objectclass=person)(cn=foo*))}, so the 
+	 * server can use its object class index and doesn't return entries the mapper would 
+	 * discard. It is enabled by default.
+	 */
+	public void setObjectClassFilter(boolean objectClassFilter) {
+		this.objectClassFilter = objectClassFilter;
+	}
+	
+	public ExecutorService getBatchExecutorService() {
+		return batchExecutorService;
+	}
+
+	/**
+	 * Sets the executor that runs the operations of batches and the chunked searches of 
+	 * {@code findByExamples}. A fixed thread pool of {@code batchConcurrency} threads is 
+	 * created per call if it is not set. 
+	 */
+	public void setBatchExecutorService(ExecutorService batchExecutorService) {
+		this.batchExecutorService = batchExecutorService;
+	}
+	
+	public int getSlowQueryThresholdInMs() {
+		return slowQueryThresholdInMs;
+	}
+	
+	/**
+	 * Sets the time a search may take before it is logged at warn level to the 
+	 * {@code net.jolm.JolmLdapTemplate.slowQuery} log, with its base, scope, filter, returning
+	 * attributes, the number of entries and attribute values returned, the size of the 
+	 * values in bytes, UTF-8 encoded for the string ones, and the elapsed time. 0 logs every
+	 * search. It is disabled by default with -1, and nothing is measured then. 
+	 * 
+	 * <p>When enabled, every attribute value of every entry returned is visited to measure
+	 * it, whether the search turns out to be slow or not, which costs in the order of the 
+	 * mapping of the entry itself on large results.</p>
+	 */
+	public void setSlowQueryThresholdInMs(int slowQueryThresholdInMs) {
+		this.slowQueryThresholdInMs = slowQueryThresholdInMs;
+	}
+	
+	public LdapMetrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Sets the {@code LdapMetrics} that records the duration, result size and failure of 
+	 * {@code create}, {@code get}, {@code find}, {@code findByExample}, {@code findByExamples},
+	 * {@code listChildren}, {@code modify} and {@code delete}. Nothing is recorded by default.
+	 */
+	public void setMetrics(LdapMetrics metrics) {
+		Assert.notNull(metrics, "metrics must not be null");
+		this.metrics = metrics;
+	}
+
 	public JolmLdapTemplate(ContextSource contextSource) {
 		super(contextSource);
 	}
@@ -71,6 +287,17 @@ public class JolmLdapTemplate extends SimpleLdapTemplate implements JolmLdapOper
 	public JolmLdapTemplate(LdapOperations ldapOperations) {
 		super(ldapOperations);
 	}
+	
+	/**
+	 * Creates a template that writes to the master and reads from the replicas round-robin. 
+	 * Use {@link ReplicatedContextSource} directly for the other settings.
+	 * 
+	 * @param master The {@code ContextSource} of the master server.
+	 * @param replicas The {@code ContextSource}s of the replica servers.
+	 */
+	public JolmLdapTemplate(ContextSource master, ContextSource[] replicas) {
+		super(new ReplicatedContextSource(master, replicas));
+	}
 	/**
 	 * Creates an entity in LDAP server. The 'dn' of the entity field will also
 	 * be updated with DN of the newly created LDAP Entity.
@@ -81,13 +308,17 @@ public class JolmLdapTemplate extends SimpleLdapTemplate implements JolmLdapOper
 	 * @return The LDAP entity with DN populated.
 	 * @throws NameAlreadyBoundException if entity already exists in LDAP server.
 	 */
-	public LdapEntity create(String parentDn, LdapEntity entity) {
-		DistinguishedName dn = new DistinguishedName(parentDn);
-		dn.add(new LdapRdn(entity.getRdn()));
-		LdapContextMapper contextMapper = getLdapContextMapper(entity.getClass());
-		getLdapOperations().bind(dn, contextMapper.mapToContext(entity), null);
-		entity.setDn(dn.toString());
-		return entity;
+	public LdapEntity create(final String parentDn, final LdapEntity entity) {
+		return recordOperation(LdapMetrics.CREATE, entity.getClass(), new RecordedOperation<LdapEntity>() {
+			public LdapEntity execute() {
+				DistinguishedName dn = new DistinguishedName(parentDn);
+				dn.add(new LdapRdn(entity.getRdn()));
+				bindTemplate(dn, entity);
+				entity.setDn(dn.toString());
+				clearDirtyAttributes(entity);
+				return entity;
+			}
+		});
 	}
 	/**
 	 * Modifies the entity in LDAP server. Only the fields that have values within 
@@ -104,7 +335,7 @@ public class JolmLdapTemplate extends SimpleLdapTemplate implements JolmLdapOper
 		DistinguishedName dn = new DistinguishedName(parentDn);
 		dn.add(new LdapRdn(entity.getRdn()));
 		
-		modifyTemplate(dn, entity);
+		recordedModifyTemplate(dn, entity);
 	}		
 	/**
 	 * Modifies the LDAP Entity. Only the fields that has value within LDAP Entity
@@ -118,7 +349,82 @@ public class JolmLdapTemplate extends SimpleLdapTemplate implements JolmLdapOper
 		if ( StringUtils.isEmpty(entity.getDn()) ) {
 			throw new IllegalArgumentException("The 'dn' field in the entity can not be empty with modify operation.");
 		}
-		modifyTemplate(new DistinguishedName(entity.getDn()), entity);
+		recordedModifyTemplate(new DistinguishedName(entity.getDn()), entity);
+	}
+	
+	/**
+	 * Modifies only the attributes of the LDAP Entity that differ from {@code original}, 
+	 * a snapshot of the entity taken when it was loaded. The modifications are computed 
+	 * locally, so no lookup is done and nothing is sent if nothing has changed. As with
+	 * {@code modify}, null fields are left untouched and {@link net.jolm.Null} fields are
+	 * removed. The DN field of the entity has to be set.
+	 * 
+	 * <p>The modification is optimistic: a changed attribute is sent as the removal of its
+	 * values in {@code original} followed by the addition of the new ones, so the whole 
+	 * modification fails if another client changed the attribute in between.</p>
+	 * 
+	 * @param original The LDAP Entity as it was loaded.
+	 * @param entity The modified LDAP Entity.
+	 * @throws IllegalArgumentException if {@code dn} field is not set in the LDAP entity.
+	 * @throws org.springframework.ldap.NoSuchAttributeException if a changed attribute no
+	 * 		longer has the values of {@code original}.
+	 * @throws org.springframework.ldap.AttributeInUseException if an added attribute or 
+	 * 		value has been added in between.
+	 */
+	public void modifyChanges(final LdapEntity original, final LdapEntity entity) {
+		if ( StringUtils.isEmpty(entity.getDn()) ) {
+			throw new IllegalArgumentException("The 'dn' field in the entity can not be empty with modify operation.");
+		}
+		recordOperation(LdapMetrics.MODIFY, entity.getClass(), new RecordedOperation<Void>() {
+			public Void execute() {
+				DistinguishedName dn = new DistinguishedName(entity.getDn());
+				LdapContextMapper contextMapper = getLdapContextMapper(entity.getClass());
+				
+				//Maps all the attributes of the snapshot, dirty or not.
+				DirContextAdapter originalContext = (DirContextAdapter)contextMapper.mapToContext(original);
+				DirContextAdapter dirContext = new DirContextAdapter(originalContext.getAttributes(), dn);
+				dirContext.setUpdateMode(true);
+				contextMapper.mapToContext(entity, dirContext);
+				
+				ModificationItem[] modificationItems = getOptimisticModificationItems(
+						dirContext.getModificationItems(), originalContext.getAttributes());
+				if ( modificationItems.length > 0 ) {
+					getLdapOperations().modifyAttributes(dn, modificationItems);
+				} else if ( log.isDebugEnabled() ) {
+					log.debug("No changes to modify for " + dn);
+				}
+				clearDirtyAttributes(entity);
+				return null;
+			}
+		});
+	}
+	
+	/**
+	 * Turns the attribute replacements into the removal of the original values and the 
+	 * addition of the new ones. Value removals and additions are kept, they already fail 
+	 * on values changed in between.
+	 */
+	private ModificationItem[] getOptimisticModificationItems(ModificationItem[] modificationItems, Attributes originalAttributes) {
+		List<ModificationItem> result = new ArrayList<ModificationItem>(modificationItems.length * 2);
+		for ( ModificationItem modificationItem : modificationItems ) {
+			Attribute attribute = modificationItem.getAttribute();
+			Attribute originalAttribute = originalAttributes.get(attribute.getID());
+			boolean hasOriginalValues = originalAttribute != null && originalAttribute.size() > 0;
+			if ( modificationItem.getModificationOp() == DirContext.REPLACE_ATTRIBUTE ) {
+				if ( hasOriginalValues ) {
+					result.add(new ModificationItem(DirContext.REMOVE_ATTRIBUTE, originalAttribute));
+				}
+				if ( attribute.size() > 0 ) {
+					result.add(new ModificationItem(DirContext.ADD_ATTRIBUTE, attribute));
+				}
+			} else if ( modificationItem.getModificationOp() == DirContext.REMOVE_ATTRIBUTE 
+					&& attribute.size() == 0 && hasOriginalValues ) {
+				result.add(new ModificationItem(DirContext.REMOVE_ATTRIBUTE, originalAttribute));
+			} else {
+				result.add(modificationItem);
+			}
+		}
+		return result.toArray(new ModificationItem[result.size()]);
 	}
 	
 	/**
@@ -129,9 +435,115 @@ public class JolmLdapTemplate extends SimpleLdapTemplate implements JolmLdapOper
 	 * @return The LDAP Entity.
 	 * @throws NameNotFoundException if the DN doesn't exist in LDAP server.
 	 */
-	public LdapEntity get(String dn,
-			Class<? extends LdapEntity> entityClass) {
-		return (LdapEntity)getLdapOperations().lookup(new DistinguishedName(dn), getLdapContextMapper(entityClass));
+	public LdapEntity get(final String dn,
+			final Class<? extends LdapEntity> entityClass) {
+		return recordOperation(LdapMetrics.GET, entityClass, new RecordedOperation<LdapEntity>() {
+			public LdapEntity execute() {
+				return (LdapEntity)getLdapOperations().lookup(new DistinguishedName(dn), getLdapContextMapper(entityClass));
+			}
+			
+			public int getResultSize(LdapEntity entity) {
+				return entity == null ? 0 : 1;
+			}
+		});
+	}
+	
+	/**
+	 * Finds the LDAP Entities by DNs. Duplicated DNs are looked up once. DNs sharing the 
+	 * same parent are found by one-level searches under the parent that OR their RDNs, 
+	 * in chunks of {@code examplesChunkSize}, and the other DNs are looked up individually. 
+	 * The searches and lookups run in parallel by up to {@code batchConcurrency} threads.
+	 * 
+	 * @param dns The DNs of the LDAP Entities.
+	 * @param entityClass The LDAP Entity Class.
+	 * @return The LDAP Entities keyed by the DNs as passed in, in the order of the DNs. 
+	 * 		The DNs that don't exist or are not of the entity class are left out.
+	 */
+	public Map<String, LdapEntity> getAll(Collection<String> dns, final Class<? extends LdapEntity> entityClass) {
+		//Unique DNs keyed by normalized DN, and grouped by the normalized DN of their parents.
+		Map<String, String> uniqueDns = new LinkedHashMap<String, String>();
+		Map<String, List<DistinguishedName>> siblings = new LinkedHashMap<String, List<DistinguishedName>>();
+		for ( String dn : dns ) {
+			String normalizedDn = normalizeDn(dn);
+			if ( uniqueDns.containsKey(normalizedDn) ) {
+				continue;
+			}
+			uniqueDns.put(normalizedDn, dn);
+			DistinguishedName parentDn = new DistinguishedName(dn);
+			if ( parentDn.size() > 0 ) {
+				parentDn.removeLast();
+			}
+			String normalizedParentDn = parentDn.toString().toLowerCase();
+			List<DistinguishedName> children = siblings.get(normalizedParentDn);
+			if ( children == null ) {
+				children = new ArrayList<DistinguishedName>();
+				siblings.put(normalizedParentDn, children);
+			}
+			children.add(new DistinguishedName(dn));
+		}
+		
+		List<Callable<List<? extends LdapEntity>>> searches = new ArrayList<Callable<List<? extends LdapEntity>>>();
+		for ( List<DistinguishedName> children : siblings.values() ) {
+			if ( children.size() == 1 ) {
+				final DistinguishedName dn = children.get(0);
+				searches.add(new Callable<List<? extends LdapEntity>>() {
+					public List<? extends LdapEntity> call() {
+						try {
+							LdapEntity entity = (LdapEntity)getLdapOperations().lookup(dn, getLdapContextMapper(entityClass));
+							return entity == null ? Collections.<LdapEntity>emptyList() : Collections.singletonList(entity);
+						} catch (org.springframework.ldap.NameNotFoundException e) {
+							return Collections.<LdapEntity>emptyList();
+						}
+					}
+				});
+				continue;
+			}
+			
+			DistinguishedName parent = new DistinguishedName(children.get(0));
+			parent.removeLast();
+			final String parentDn = parent.toString();
+			int chunkSize = examplesChunkSize > 0 ? examplesChunkSize : children.size();
+			for ( int from = 0; from < children.size(); from += chunkSize ) {
+				OrFilter orFilter = new OrFilter();
+				for ( DistinguishedName child : children.subList(from, Math.min(from + chunkSize, children.size())) ) {
+					AndFilter rdnFilter = new AndFilter();
+					for ( Object component : child.getLdapRdn(child.size() - 1).getComponents() ) {
+						LdapRdnComponent rdnComponent = (LdapRdnComponent)component;
+						rdnFilter.and(new EqualsFilter(rdnComponent.getKey(), rdnComponent.getValue()));
+					}
+					orFilter.or(rdnFilter);
+				}
+				final String filter = orFilter.encode();
+				searches.add(new Callable<List<? extends LdapEntity>>() {
+					public List<? extends LdapEntity> call() {
+						try {
+							return searchTemplate(parentDn, filter, entityClass, null, SearchControls.ONELEVEL_SCOPE, 0);
+						} catch (org.springframework.ldap.NameNotFoundException e) {
+							return Collections.<LdapEntity>emptyList();
+						}
+					}
+				});
+			}
+		}
+		
+		Map<String, LdapEntity> entitiesByNormalizedDn = new HashMap<String, LdapEntity>();
+		for ( List<? extends LdapEntity> entities : executeConcurrently(searches) ) {
+			for ( LdapEntity entity : entities ) {
+				entitiesByNormalizedDn.put(normalizeDn(entity.getDn()), entity);
+			}
+		}
+		
+		Map<String, LdapEntity> result = new LinkedHashMap<String, LdapEntity>();
+		for ( Map.Entry<String, String> uniqueDn : uniqueDns.entrySet() ) {
+			LdapEntity entity = entitiesByNormalizedDn.get(uniqueDn.getKey());
+			if ( entity != null ) {
+				result.put(uniqueDn.getValue(), entity);
+			}
+		}
+		if ( log.isDebugEnabled() ) {
+			log.debug("Found " + result.size() + " of " + uniqueDns.size() + " DNs with " + searches.size() + " searches");
+		}
+		return result;
 	}
 	
 	/**
@@ -156,10 +568,8 @@ public class JolmLdapTemplate extends SimpleLdapTemplate implements JolmLdapOper
 	 * 
 	 * @see org.springframework.ldap.filter.WhitespaceWildcardsFilter
 	 */
-	@SuppressWarnings("unchecked")
 	public List<? extends LdapEntity> findByExample(String base, LdapEntity example, boolean wildcardFilters) {
-		AndFilter filter = getAndFilterFromExample(example, wildcardFilters);
-		return searchTemplate(base, filter.encode(), example.getClass());
+		return findByExample(base, example, null, wildcardFilters);
 	}
 	
 
@@ -193,9 +603,29 @@ public class JolmLdapTemplate extends SimpleLdapTemplate implements JolmLdapOper
 	 */
 	public List<? extends LdapEntity> findByExample(String base,
 			LdapEntity example, String[] attributes, boolean wildcardFilters) {
-		AndFilter filter = getAndFilterFromExample(example, wildcardFilters);
-		return searchTemplate(base, filter.encode(), example.getClass(), attributes);
-
+		return findByExample(base, example, attributes, wildcardFilters, pageSize);
+	}	
+	
+	/**
+	 * Finds the LDAP Entities by Example, retrieving the results in pages of {@code pageSize}. 
+	 * 
+	 * @param base The base path. 
+	 * @param example The LDAP Entity that has query fields set properly. 
+	 * @param attributes Specifies list of attributes to return back. All the attributes 
+	 * 		will be returned if it is null.
+	 * @param wildcardFilters Indicates whether to use {@code WhitespaceWildcardsFilter} or 
+	 * 		not. EqualsFilter will be used when it is false. 
+	 * @param pageSize The page size. Paging is disabled when it is 0.
+	 * @return List of LDAP Entities.
+	 */
+	public List<? extends LdapEntity> findByExample(final String base,
+			final LdapEntity example, final String[] attributes, final boolean wildcardFilters, final int pageSize) {
+		return recordOperation(LdapMetrics.FIND_BY_EXAMPLE, example.getClass(), new RecordedOperation<List<? extends LdapEntity>>() {
+			public List<? extends LdapEntity> execute() {
+				AndFilter filter = getAndFilterFromExample(example, wildcardFilters);
+				return searchTemplate(base, filter.encode(), example.getClass(), attributes, SearchControls.SUBTREE_SCOPE, pageSize);
+			}
+		});
 	}	
 	
 	/**
@@ -240,11 +670,36 @@ public class JolmLdapTemplate extends SimpleLdapTemplate implements JolmLdapOper
 	 */		
 	public List<? extends LdapEntity> findByExamples(String base,
 			LdapEntity[] examples, String[] attributes, boolean wildcardFilters) {
+		return findByExamples(base, examples, attributes, wildcardFilters, pageSize);
+	}		
+	
+	/**
+	 * Finds the LDAP Entities matched by all examples, retrieving the results in pages of
+	 * {@code pageSize}. 
+	 * 
+	 * @param base The base path. 
+	 * @param examples The LDAP Entities that has query fields set properly.
+	 * @param attributes Specifies list of attributes to return back. All the attributes 
+	 * 		will be returned if it is null. 
+	 * @param wildcardFilters Indicates whether to use {@code WhitespaceWildcardsFilter} or 
+	 * 		not. EqualsFilter will be used when it is false.
+	 * @param pageSize The page size. Paging is disabled when it is 0.
+	 * @return List of LDAP Entities.
+	 */		
+	public List<? extends LdapEntity> findByExamples(final String base,
+			final LdapEntity[] examples, final String[] attributes, final boolean wildcardFilters, final int pageSize) {
 		if ( examples == null || examples.length == 0) {
 			return new ArrayList<LdapEntity>();
 		}
-		OrFilter filter = getOrFilterFromExamples(examples, wildcardFilters);
-		return searchTemplate(base, filter.encode(), examples[0].getClass(), attributes);
+		return recordOperation(LdapMetrics.FIND_BY_EXAMPLES, examples[0].getClass(), new RecordedOperation<List<? extends LdapEntity>>() {
+			public List<? extends LdapEntity> execute() {
+				if ( examplesChunkSize > 0 && examples.length > examplesChunkSize ) {
+					return findByExampleChunks(base, examples, attributes, wildcardFilters, pageSize);
+				}
+				OrFilter filter = getOrFilterFromExamples(examples, wildcardFilters);
+				return searchTemplate(base, filter.encode(), examples[0].getClass(), attributes, SearchControls.SUBTREE_SCOPE, pageSize);
+			}
+		});
 	}		
 	
 	/**
@@ -271,7 +726,7 @@ public class JolmLdapTemplate extends SimpleLdapTemplate implements JolmLdapOper
 	 * @return List of LDAP Entities.
 	 */
 	public List<? extends LdapEntity> find(String base, String filter, Class<? extends LdapEntity> entityClass) {
-		return searchTemplate(base, filter, entityClass);
+		return find(base, filter, null, entityClass);
 	}	
 		
 	/**
@@ -284,127 +739,821 @@ public class JolmLdapTemplate extends SimpleLdapTemplate implements JolmLdapOper
 	 * @return List of LDAP Entities.
 	 */
 	public List<? extends LdapEntity> find(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass) {
-		return searchTemplate(base, filter, entityClass, attributes);
+		return find(base, filter, attributes, entityClass, pageSize);
 	}
 	
 	/**
-	 * List the children of a specific objectClass under an entity in LDAP identified by {@code baseDn}.
-	 * 
-	 * @param baseDn The base DN.
-	 * @param childEntityClass The child entity class.
-	 * @return List of LDAP Entities.
-	 * @throws NameNotFoundException when the base DN doesn't exist
-	 */
-	public List<? extends LdapEntity> listChildren(String baseDn, Class<? extends LdapEntity> childEntityClass) {
-		@SuppressWarnings({ "unchecked" })
-		List<? extends LdapEntity> result = getLdapOperations().listBindings(baseDn, getLdapContextMapper(childEntityClass));
-		result = filterNullEntities(result);
-		return completeDnInEntities(baseDn, result);
-	}		
-			
-	/**
-	 * List the children of a specific objectClass under an entity identified by baseDn.
+	 * Finds the LDAP entities by LDAP search filter, retrieving the results in pages of 
+	 * {@code pageSize} with the paged results control.
 	 * 
-	 * @param baseDn The base DN.
-	 * @param childEntityClass The child entity class.
+	 * @param base The base.
+	 * @param filter LDAP filter.
 	 * @param attributes Specifies list of attributes to return back. All the attributes 
 	 * 		will be returned if it is null. 
+	 * @param entityClass The LDAP Entity Class.
+	 * @param pageSize The page size. Paging is disabled when it is 0.
 	 * @return List of LDAP Entities.
-	 * @throws NameNotFoundException when the base DN doesn't exist
 	 */
-	@SuppressWarnings("unchecked")
-	public List<? extends LdapEntity> listChildren(String baseDn, Class<? extends LdapEntity> childEntityClass, String[] attributes) {
-		List<LdapEntity> result = (List<LdapEntity>) listChildren(baseDn, childEntityClass);
-		return filterAttributes(result, attributes);
-	}	
+	public List<? extends LdapEntity> find(final String base, final String filter, final String[] attributes, final Class<? extends LdapEntity> entityClass, final int pageSize) {
+		return recordOperation(LdapMetrics.FIND, entityClass, new RecordedOperation<List<? extends LdapEntity>>() {
+			public List<? extends LdapEntity> execute() {
+				return searchTemplate(base, filter, entityClass, attributes, SearchControls.SUBTREE_SCOPE, pageSize);
+			}
+		});
+	}
 	
 	/**
-	 * Deletes the LDAP Entity. The entity must not have any children. If the 
-	 * entity could have children, use {@code deleteRecursively} method instead.
+	 * Finds the LDAP entities of any mapped object class by LDAP search filter. Each entry
+	 * is mapped by the mapper of the most specific LDAP Entity class its object classes
+	 * are mapped to, so a subtree of mixed entities is fetched by one search. Entries none 
+	 * of whose object classes is mapped are skipped.
 	 * 
-	 * @param dn The DN of the LDAP Entity.
-	 * @throws NameNotFoundException when the DN doesn't exist
-	 * 
-	 * @see #deleteRecursively(String)
+	 * @param base The base.
+	 * @param filter LDAP filter.
+	 * @return List of LDAP Entities of different classes.
 	 */
-	public void delete(String dn) {
-		deleteTemplate(dn, false);
-	}		
+	public List<? extends LdapEntity> findPolymorphic(String base, String filter) {
+		return findPolymorphic(base, filter, null);
+	}
+	
 	/**
-	 * Deletes the LDAP Entity. Removes all the children if there are any.
+	 * Finds the LDAP entities of any mapped object class by LDAP search filter.
 	 * 
-	 * @param dn The DN of the LDAP Entity.
-	 * @throws NameNotFoundException when the DN doesn't exist
+	 * @param base The base.
+	 * @param filter LDAP filter.
+	 * @param attributes Specifies list of attributes to return back. All the attributes 
+	 * 		will be returned if it is null. 
+	 * @return List of LDAP Entities of different classes.
+	 * @see #findPolymorphic(String, String)
 	 */
-	public void deleteRecursively(String dn) {
-		deleteTemplate(dn, true);
+	public List<? extends LdapEntity> findPolymorphic(String base, String filter, String[] attributes) {
+		CollectingCallbackHandler collectingHandler = new CollectingCallbackHandler();
+		searchTemplate(base, filter, attributes, SearchControls.SUBTREE_SCOPE, pageSize, 
+				new StreamingCallbackHandler(new PolymorphicContextMapper(contextMapperRegistry), collectingHandler));
+		return collectingHandler.getList();
 	}
 	
-	
 	/**
-	 * Returns a {@code LdapContextMapper} instance for a {@code ldapEntityClass}.
+	 * Finds the LDAP entities by LDAP search filter, sorted by the server with the server 
+	 * side sort control (RFC 2891).
 	 * 
-	 * @param ldapEntityClass
-	 * @return {@code LdapContextMapper} instance.
-	 * 
-	 * @see net.jolm.LdapContextMapper
+	 * @param base The base.
+	 * @param filter LDAP filter.
+	 * @param attributes Specifies list of attributes to return back. All the attributes 
+	 * 		will be returned if it is null. 
+	 * @param entityClass The LDAP Entity Class.
+	 * @param sortKey The attribute to sort by.
+	 * @param ascending Indicates whether to sort in ascending or descending order.
+	 * @return List of LDAP Entities in sorted order.
 	 */
-	protected LdapContextMapper getLdapContextMapper(Class<? extends LdapEntity> ldapEntityClass) {
-		String mapperClassName = contextMappersPackage + "." + ldapEntityClass.getSimpleName() + "Mapper";
+	public List<? extends LdapEntity> findSorted(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, 
+			String sortKey, boolean ascending) {
+		CollectingCallbackHandler collectingHandler = new CollectingCallbackHandler();
 		try {
-			Class<?> mapperClass = Thread.currentThread().getContextClassLoader().loadClass(mapperClassName);
-			return (LdapContextMapper)mapperClass.newInstance();
-		} catch (ClassNotFoundException e) {
-			//Should not happen.
-			throw new RuntimeException("Unable to find context mapper class: " + mapperClassName);
-		} catch (Exception e) {
-			//Should not happen.
-			throw new RuntimeException("Unable to instantiate context mapper class: " + mapperClassName);			
+			Control[] requestControls = new Control[] {createSortControl(sortKey, ascending)};
+			controlledSearch(base, getEntityFilter(filter, entityClass), getSearchControls(SearchControls.SUBTREE_SCOPE, attributes), requestControls, 
+					new StreamingCallbackHandler(getLdapContextMapper(entityClass), collectingHandler));
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to create the sort control.", e);
 		}
+		return collectingHandler.getList();
 	}
 	
-	private List<? extends LdapEntity> searchTemplate(String base, String filter, Class<? extends LdapEntity> entityClass) {
-		return searchTemplate(base, filter, entityClass, null);
-	}	
-	
-	@SuppressWarnings("unchecked")
-	private List<? extends LdapEntity> searchTemplate(String base, String filter, Class<? extends LdapEntity> entityClass, String[] attributes) {
-		List<? extends LdapEntity> result = null; 
-		if (attributes != null ) {
-			attributes = addObjectClassIfMissed(attributes);
+	/**
+	 * Finds one page of the LDAP entities matched by LDAP search filter. The results are 
+	 * sorted by the server with the server side sort control and the page is cut by the 
+	 * server with the virtual list view control, so only {@code count} entries are 
+	 * transferred.
+	 * 
+	 * @param base The base.
+	 * @param filter LDAP filter.
+	 * @param attributes Specifies list of attributes to return back. All the attributes 
+	 * 		will be returned if it is null. 
+	 * @param entityClass The LDAP Entity Class.
+	 * @param sortKey The attribute to sort by.
+	 * @param ascending Indicates whether to sort in ascending or descending order.
+	 * @param offset The 0-based position of the first entry of the page in the sorted results.
+	 * @param count The maximum number of entries in the page.
+	 * @return The page of LDAP Entities with the estimated total count.
+	 */
+	public LdapEntityPage findPage(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, 
+			String sortKey, boolean ascending, int offset, int count) {
+		if ( offset < 0 || count < 1 ) {
+			throw new IllegalArgumentException("Invalid page: offset=" + offset + ", count=" + count);
+		}
+		CollectingCallbackHandler collectingHandler = new CollectingCallbackHandler();
+		VirtualListViewResponseControl responseControl;
+		try {
+			Control[] requestControls = new Control[] {createSortControl(sortKey, ascending), new VirtualListViewControl(offset + 1, count)};
+			Control[] responseControls = controlledSearch(base, getEntityFilter(filter, entityClass), 
+					getSearchControls(SearchControls.SUBTREE_SCOPE, attributes), requestControls, 
+					new StreamingCallbackHandler(getLdapContextMapper(entityClass), collectingHandler));
+			responseControl = VirtualListViewResponseControl.fromControls(responseControls);
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to encode or decode the virtual list view control.", e);
 		}
-		result = getLdapOperations().search(base, filter, getDefaultSearchControls(SearchControls.SUBTREE_SCOPE, RETURN_OBJ_FLAG, attributes), getLdapContextMapper(entityClass));
 		
-		return filterNullEntities(result);
+		if ( responseControl != null && responseControl.getResultCode() != 0 ) {
+			throw new UncategorizedLdapException("Virtual list view failed with result code " + responseControl.getResultCode());
+		}
+		return new LdapEntityPage(collectingHandler.getList(), offset, responseControl != null ? responseControl.getContentCount() : -1);
 	}
 	
-	private SearchControls getDefaultSearchControls(int searchScope, boolean returnObjFlag, String[] attributes) {
-        SearchControls controls = new SearchControls();
-        
-        controls.setSearchScope(searchScope);
-        controls.setReturningObjFlag(returnObjFlag);
-        controls.setReturningAttributes(attributes);
-        controls.setTimeLimit(this.searchTimeoutInMs );
-        
-        return controls;
+	/**
+	 * Finds the LDAP entities by LDAP search filter and hands them to the callback handler one 
+	 * at a time, without collecting the results in memory.
+	 * 
+	 * @param base The base.
+	 * @param filter LDAP filter.
+	 * @param entityClass The LDAP Entity Class.
+	 * @param callbackHandler The handler that receives each LDAP Entity found.
+	 */
+	public void forEach(String base, String filter, Class<? extends LdapEntity> entityClass, LdapEntityCallbackHandler callbackHandler) {
+		forEach(base, filter, null, entityClass, callbackHandler);
 	}
 	
-	@SuppressWarnings("unchecked")
-	private List<? extends LdapEntity> completeDnInEntities(String baseDn, List<? extends LdapEntity> entities) {
-		for ( LdapEntity entity : entities ) {
-			try {
-				entity.setDn(new DistinguishedName(baseDn).add(entity.getRdn()).toString());
-			} catch (InvalidNameException ignoreIt) {
-				log.warn("Exception occurred while constructing DN.", ignoreIt);
-			}
-		}
-		return entities;
+	/**
+	 * Finds the LDAP entities by LDAP search filter and hands them to the callback handler one 
+	 * at a time, without collecting the results in memory.
+	 * 
+	 * @param base The base.
+	 * @param filter LDAP filter.
+	 * @param attributes Specifies list of attributes to return back. All the attributes 
+	 * 		will be returned if it is null. 
+	 * @param entityClass The LDAP Entity Class.
+	 * @param callbackHandler The handler that receives each LDAP Entity found.
+	 */
+	public void forEach(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, LdapEntityCallbackHandler callbackHandler) {
+		forEach(base, filter, attributes, entityClass, callbackHandler, pageSize);
 	}
-
-	private void modifyTemplate(DistinguishedName dn, LdapEntity entity) {
-		DirContextOperations dirContext = getLdapOperations().lookupContext(dn);
+	
+	/**
+	 * Finds the LDAP entities by LDAP search filter and hands them to the callback handler one 
+	 * at a time, retrieving the results in pages of {@code pageSize}. Only one page is held
+	 * in memory at any time.
+	 * 
+	 * @param base The base.
+	 * @param filter LDAP filter.
+	 * @param attributes Specifies list of attributes to return back. All the attributes 
+	 * 		will be returned if it is null. 
+	 * @param entityClass The LDAP Entity Class.
+	 * @param callbackHandler The handler that receives each LDAP Entity found.
+	 * @param pageSize The page size. Paging is disabled when it is 0.
+	 */
+	public void forEach(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, LdapEntityCallbackHandler callbackHandler, int pageSize) {
+		searchTemplate(base, getEntityFilter(filter, entityClass), attributes, SearchControls.SUBTREE_SCOPE, pageSize, 
+				new StreamingCallbackHandler(getLdapContextMapper(entityClass), callbackHandler));
+	}
+	
+	/**
+	 * Finds the LDAP entities by LDAP search filter and returns an iterator that maps the 
+	 * results one at a time. The iterator holds a {@code DirContext} open until it is 
+	 * exhausted or closed.
+	 * 
+	 * @param base The base.
+	 * @param filter LDAP filter.
+	 * @param attributes Specifies list of attributes to return back. All the attributes 
+	 * 		will be returned if it is null. 
+	 * @param entityClass The LDAP Entity Class.
+	 * @return The iterator over the LDAP Entities found. 
+	 * @throws UnsupportedOperationException if the template is not backed by a {@code ContextSource}.
+	 */
+	@SuppressWarnings("unchecked")
+	public LdapEntityIterator iterate(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass) {
+		LdapContextMapper contextMapper = getLdapContextMapper(entityClass);
+		DirContext context = getContextSource().getReadOnlyContext();
+		try {
+			NamingEnumeration results = context.search(base, getEntityFilter(filter, entityClass), 
+					getSearchControls(SearchControls.SUBTREE_SCOPE, attributes));
+			return new LdapEntityIterator(context, results, contextMapper);
+		} catch (javax.naming.NamingException e) {
+			LdapUtils.closeContext(context);
+			throw LdapUtils.convertLdapException(e);
+		}
+	}
+	
+	/**
+	 * List the children of a specific objectClass under an entity in LDAP identified by {@code baseDn}.
+	 * 
+	 * @param baseDn The base DN.
+	 * @param childEntityClass The child entity class.
+	 * @return List of LDAP Entities.
+	 * @throws NameNotFoundException when the base DN doesn't exist
+	 */
+	public List<? extends LdapEntity> listChildren(String baseDn, Class<? extends LdapEntity> childEntityClass) {
+		return listChildren(baseDn, childEntityClass, null, pageSize);
+	}		
+			
+	/**
+	 * List the children of a specific objectClass under an entity identified by baseDn.
+	 * 
+	 * @param baseDn The base DN.
+	 * @param childEntityClass The child entity class.
+	 * @param attributes Specifies list of attributes to return back. All the attributes 
+	 * 		will be returned if it is null. 
+	 * @return List of LDAP Entities.
+	 * @throws NameNotFoundException when the base DN doesn't exist
+	 */
+	public List<? extends LdapEntity> listChildren(String baseDn, Class<? extends LdapEntity> childEntityClass, String[] attributes) {
+		return listChildren(baseDn, childEntityClass, attributes, pageSize);
+	}	
+	
+	/**
+	 * List the children of a specific objectClass under an entity identified by baseDn, 
+	 * retrieving the results in pages of {@code pageSize}.
+	 * 
+	 * @param baseDn The base DN.
+	 * @param childEntityClass The child entity class.
+	 * @param attributes Specifies list of attributes to return back. All the attributes 
+	 * 		will be returned if it is null. 
+	 * @param pageSize The page size. Paging is disabled when it is 0.
+	 * @return List of LDAP Entities.
+	 * @throws NameNotFoundException when the base DN doesn't exist
+	 */
+	public List<? extends LdapEntity> listChildren(final String baseDn, final Class<? extends LdapEntity> childEntityClass, final String[] attributes, final int pageSize) {
+		return recordOperation(LdapMetrics.LIST_CHILDREN, childEntityClass, new RecordedOperation<List<? extends LdapEntity>>() {
+			public List<? extends LdapEntity> execute() {
+				if ( attributes == null && pageSize <= 0 ) {
+					@SuppressWarnings({ "unchecked" })
+					List<? extends LdapEntity> bindings = getLdapOperations().listBindings(baseDn, getLdapContextMapper(childEntityClass));
+					//The names of the bindings are relative to the base DN.
+					return completeDnInEntities(baseDn, filterNullEntities(bindings));
+				}
+				//Lets the server return only the requested attributes instead of 
+				//fetching whole entries with listBindings. The search results carry 
+				//their full DN, so the RDN attribute doesn't have to be returned.
+				return searchTemplate(baseDn, CHILDREN_FILTER, childEntityClass, attributes, SearchControls.ONELEVEL_SCOPE, pageSize);
+			}
+		});
+	}	
+	
+	/**
+	 * Loads the LDAP Entity with its descendants by one subtree search, or by one search
+	 * per level for depths 0 and 1. Each entry is mapped to the child type of its parent 
+	 * whose object class it has, the most specific one if several match, and is set into 
+	 * the matching child array of the parent, e.g. 
+	 * {@code setOrganizationalUnits}. Entries that don't match any child type of their 
+	 * parent are skipped together with their descendants.
+	 * 
+	 * @param dn The DN of the root LDAP Entity.
+	 * @param entityClass The LDAP Entity Class of the root.
+	 * @param depth The number of levels to load below the root, negative for all levels. 
+	 * 		0 and 1 search only those levels. With larger depths the whole subtree is still
+	 * 		transferred by the server, the deeper entries are dropped as they arrive, 
+	 * 		without being kept or mapped.
+	 * @return The root LDAP Entity with its child arrays populated, or null if the root
+	 * 		is not of the entity class.
+	 * @throws NameNotFoundException when the DN doesn't exist
+	 */
+	public LdapEntity loadTree(String dn, Class<? extends LdapEntity> entityClass, final int depth) {
+		final int rootSize = new DistinguishedName(dn).size();
+		final List<DirContextOperations> contexts = new ArrayList<DirContextOperations>();
+		final ContextMapperCallbackHandler contextHandler = new ContextMapperCallbackHandler(new ContextMapper() {
+			public Object mapFromContext(Object ctx) {
+				return ctx;
+			}
+		});
+		NameClassPairCallbackHandler handler = new NameClassPairCallbackHandler() {
+			public void handleNameClassPair(NameClassPair nameClassPair) {
+				DirContextOperations context = (DirContextOperations)contextHandler.getObjectFromNameClassPair(nameClassPair);
+				if ( depth < 0 || context.getDn().size() - rootSize <= depth ) {
+					contexts.add(context);
+				}
+			}
+		};
+		if ( depth == 0 || depth == 1 ) {
+			searchTemplate(dn, CHILDREN_FILTER, null, SearchControls.OBJECT_SCOPE, 0, handler);
+			if ( depth == 1 && !contexts.isEmpty() ) {
+				searchTemplate(dn, CHILDREN_FILTER, null, SearchControls.ONELEVEL_SCOPE, pageSize, handler);
+			}
+		} else {
+			searchTemplate(dn, CHILDREN_FILTER, null, SearchControls.SUBTREE_SCOPE, pageSize, handler);
+		}
+		
+		//Parents are always mapped before their children.
+		Collections.sort(contexts, new Comparator<DirContextOperations>() {
+			public int compare(DirContextOperations first, DirContextOperations second) {
+				return first.getDn().size() - second.getDn().size();
+			}
+		});
+		
+		Map<String, TreeNode> nodes = new HashMap<String, TreeNode>();
+		Map<Class<?>, List<Method>> childSetters = new HashMap<Class<?>, List<Method>>();
+		Map<Class<?>, LdapEntity> prototypes = new HashMap<Class<?>, LdapEntity>();
+		TreeNode root = null;
+		for ( DirContextOperations context : contexts ) {
+			DistinguishedName contextDn = (DistinguishedName)context.getDn();
+			if ( contextDn.size() == rootSize ) {
+				LdapEntity entity = (LdapEntity)getLdapContextMapper(entityClass).mapFromContext(context);
+				if ( entity == null ) {
+					return null;
+				}
+				root = new TreeNode(entity);
+				nodes.put(contextDn.toString().toLowerCase(), root);
+				continue;
+			}
+			DistinguishedName parentDn = (DistinguishedName)contextDn.clone();
+			parentDn.removeLast();
+			TreeNode parent = nodes.get(parentDn.toString().toLowerCase());
+			if ( parent == null ) {
+				continue;
+			}
+			Method setter = findChildSetter(parent.getEntity(), context.getStringAttributes("objectClass"), childSetters, prototypes);
+			if ( setter == null ) {
+				if ( log.isDebugEnabled() ) {
+					log.debug("Skipped " + contextDn + " as it doesn't match any child type of " + parent.getEntity().getClass().getName());
+				}
+				continue;
+			}
+			LdapEntity entity = (LdapEntity)getLdapContextMapper(getChildType(setter)).mapFromContext(context);
+			if ( entity != null ) {
+				parent.addChild(setter, entity);
+				nodes.put(contextDn.toString().toLowerCase(), new TreeNode(entity));
+			}
+		}
+		
+		for ( TreeNode node : nodes.values() ) {
+			node.populateChildren();
+		}
+		if ( log.isDebugEnabled() ) {
+			log.debug("Loaded " + nodes.size() + " LDAP entities under " + dn);
+		}
+		return root == null ? null : root.getEntity();
+	}
+	
+	/**
+	 * Deletes the LDAP Entity. The entity must not have any children. If the 
+	 * entity could have children, use {@code deleteRecursively} method instead.
+	 * 
+	 * @param dn The DN of the LDAP Entity.
+	 * @throws NameNotFoundException when the DN doesn't exist
+	 * 
+	 * @see #deleteRecursively(String)
+	 */
+	public void delete(String dn) {
+		recordedDeleteTemplate(dn, false);
+	}		
+	/**
+	 * Deletes the LDAP Entity. Removes all the children if there are any.
+	 * 
+	 * @param dn The DN of the LDAP Entity.
+	 * @throws NameNotFoundException when the DN doesn't exist
+	 */
+	public void deleteRecursively(String dn) {
+		recordedDeleteTemplate(dn, true);
+	}
+	
+	/**
+	 * Deletes the LDAP Entity and all its descendants entry by entry. The subtree is 
+	 * enumerated by one search returning no attributes, in pages of {@code pageSize} or of 
+	 * 500 entries if paging is disabled, so subtrees larger than the size limit of the server
+	 * can be deleted. It is then deleted level by level from the deepest, with the entries of
+	 * each level deleted in parallel by up to {@code batchConcurrency} threads, each with its
+	 * own connection. The ancestors of an entry that failed to be deleted are skipped.
+	 * 
+	 * <p>Nothing is kept between the runs: running it again after a failure or an 
+	 * interruption enumerates and deletes the entries that are left.</p>
+	 * 
+	 * @param dn The DN of the LDAP Entity.
+	 * @param progressHandler Called after each level is deleted. Can be null.
+	 * @return The outcome per DN.
+	 * @throws NameNotFoundException when the DN doesn't exist
+	 * 
+	 * @see #deleteRecursively(String)
+	 */
+	public LdapBatchResult deleteSubtree(String dn, LdapBatchProgressHandler progressHandler) {
+		final List<BatchOperation> operations = new ArrayList<BatchOperation>();
+		ContextMapperCallbackHandler handler = new ContextMapperCallbackHandler(new ContextMapper() {
+			public Object mapFromContext(Object ctx) {
+				operations.add(new BatchOperation(((DirContextOperations)ctx).getDn().toString()) {
+					public void execute() {
+						//Entries deleted concurrently by someone else are silently ignored.
+						getLdapOperations().unbind(getDistinguishedName());
+					}
+				});
+				return null;
+			}
+		});
+		//Paging requires the ContextSource of the underlying LdapTemplate.
+		int deletePageSize = pageSize > 0 || !(getLdapOperations() instanceof LdapTemplate) ? pageSize : DEFAULT_DELETE_PAGE_SIZE;
+		searchTemplate(dn, CHILDREN_FILTER, new String[] {NO_ATTRIBUTES}, SearchControls.SUBTREE_SCOPE, deletePageSize, handler);
+		//LdapTemplate ignores the base that doesn't exist, which would be the only entry found 
+		//otherwise.
+		if ( operations.isEmpty() ) {
+			throw new org.springframework.ldap.NameNotFoundException("The DN doesn't exist: " + dn);
+		}
+		
+		if ( log.isDebugEnabled() ) {
+			log.debug("Deleting " + operations.size() + " entries under " + dn);
+		}
+		return executeBatch(operations, CHILDREN_FIRST, progressHandler);
+	}
+	
+	/**
+	 * Creates the LDAP Entities in batch. The {@code dn} field of each entity has to be set. 
+	 * The entities are created level by level so that parents in the batch are created before 
+	 * their children, and the entities within a level are created in parallel by up to 
+	 * {@code batchConcurrency} threads, each with its own connection. The descendants of an 
+	 * entity that failed to be created are skipped.
+	 * 
+	 * @param entities The LDAP Entities.
+	 * @return The outcome per DN.
+	 * @throws IllegalArgumentException if {@code dn} field is not set in any of the LDAP entities.
+	 */
+	public LdapBatchResult createAll(List<? extends LdapEntity> entities) {
+		List<BatchOperation> operations = new ArrayList<BatchOperation>();
+		for ( final LdapEntity entity : entities ) {
+			operations.add(new BatchOperation(getRequiredDn(entity)) {
+				public void execute() {
+					bindTemplate(getDistinguishedName(), entity);
+					clearDirtyAttributes(entity);
+				}
+			});
+		}
+		return executeBatch(operations, PARENTS_FIRST);
+	}
+	
+	/**
+	 * Modifies the LDAP Entities in batch, in parallel by up to {@code batchConcurrency} 
+	 * threads. The {@code dn} field of each entity has to be set. 
+	 * 
+	 * @param entities The LDAP Entities.
+	 * @return The outcome per DN.
+	 * @throws IllegalArgumentException if {@code dn} field is not set in any of the LDAP entities.
+	 * 
+	 * @see #modify(LdapEntity)
+	 */
+	public LdapBatchResult modifyAll(List<? extends LdapEntity> entities) {
+		List<BatchOperation> operations = new ArrayList<BatchOperation>();
+		for ( final LdapEntity entity : entities ) {
+			operations.add(new BatchOperation(getRequiredDn(entity)) {
+				public void execute() {
+					modifyTemplate(getDistinguishedName(), entity);
+				}
+			});
+		}
+		return executeBatch(operations, ANY_ORDER);
+	}
+	
+	/**
+	 * Deletes the LDAP Entities in batch. The entities are deleted level by level so that 
+	 * children in the batch are deleted before their parents, and the entities within a 
+	 * level are deleted in parallel by up to {@code batchConcurrency} threads.
+	 * 
+	 * @param dns The DNs of the LDAP Entities.
+	 * @return The outcome per DN.
+	 * 
+	 * @see #delete(String)
+	 */
+	public LdapBatchResult deleteAll(List<String> dns) {
+		List<BatchOperation> operations = new ArrayList<BatchOperation>();
+		for ( final String dn : dns ) {
+			operations.add(new BatchOperation(dn) {
+				public void execute() {
+					deleteTemplate(getDn(), false);
+				}
+			});
+		}
+		return executeBatch(operations, CHILDREN_FIRST);
+	}
+	
+	
+	/**
+	 * Returns a {@code LdapContextMapper} instance for a {@code ldapEntityClass}.
+	 * 
+	 * @param ldapEntityClass
+	 * @return {@code LdapContextMapper} instance.
+	 * 
+	 * @see net.jolm.LdapContextMapper
+	 */
+	protected LdapContextMapper getLdapContextMapper(Class<? extends LdapEntity> ldapEntityClass) {
+		return contextMapperRegistry.getLdapContextMapper(ldapEntityClass);
+	}
+	
+	/**
+	 * Registers a {@code LdapContextMapper} for a {@code ldapEntityClass} explicitly, 
+	 * instead of resolving it from {@code contextMappersPackage}.
+	 * 
+	 * @param ldapEntityClass The LDAP Entity class.
+	 * @param contextMapper The mapper for the LDAP Entity class.
+	 */
+	public void registerLdapContextMapper(Class<? extends LdapEntity> ldapEntityClass, LdapContextMapper contextMapper) {
+		contextMapperRegistry.register(ldapEntityClass, contextMapper);
+	}
+	
+	/**
+	 * Builds the filter that {@code findByExample} searches with.
+	 * 
+	 * @param example The LDAP Entity that has query fields set properly.
+	 * @param wildcardFilters Indicates whether to use {@code WhitespaceWildcardsFilter} or 
+	 * 		not. EqualsFilter will be used when it is false.
+	 * @return The filter matching the example.
+	 */
+	public AndFilter getExampleFilter(LdapEntity example, boolean wildcardFilters) {
+		return getAndFilterFromExample(example, wildcardFilters, false);
+	}
+	
+	/**
+	 * Builds the filter that {@code findByExamples} searches with.
+	 * 
+	 * @param examples The LDAP Entities that has query fields set properly.
+	 * @param wildcardFilters Indicates whether to use {@code WhitespaceWildcardsFilter} or 
+	 * 		not. EqualsFilter will be used when it is false.
+	 * @return The filter matching any of the examples.
+	 */
+	public OrFilter getExamplesFilter(LdapEntity[] examples, boolean wildcardFilters) {
+		return getOrFilterFromExamples(examples, wildcardFilters);
+	}
+	
+	/**
+	 * @return The registry that caches {@code LdapContextMapper} instances, including its
+	 * 		hit and miss counters.
+	 */
+	public LdapContextMapperRegistry getContextMapperRegistry() {
+		return contextMapperRegistry;
+	}
+	
+	private List<? extends LdapEntity> searchTemplate(String base, String filter, Class<? extends LdapEntity> entityClass, String[] attributes, int searchScope, int pageSize) {
+		CollectingCallbackHandler collectingHandler = new CollectingCallbackHandler();
+		searchTemplate(base, getEntityFilter(filter, entityClass), attributes, searchScope, pageSize, 
+				new StreamingCallbackHandler(getLdapContextMapper(entityClass), collectingHandler));
+		return collectingHandler.getList();
+	}
+	
+	private void searchTemplate(String base, String filter, String[] attributes, int searchScope, int pageSize, NameClassPairCallbackHandler handler) {
+		SearchControls controls = getSearchControls(searchScope, attributes);
+		if ( slowQueryThresholdInMs < 0 ) {
+			searchTemplate(base, filter, controls, pageSize, handler);
+			return;
+		}
+		
+		MeasuringCallbackHandler measuringHandler = new MeasuringCallbackHandler(handler);
+		long startTime = System.nanoTime();
+		boolean succeeded = false;
+		try {
+			searchTemplate(base, filter, controls, pageSize, measuringHandler);
+			succeeded = true;
+		} finally {
+			long elapsedInMs = (System.nanoTime() - startTime) / 1000000;
+			if ( elapsedInMs >= slowQueryThresholdInMs && slowQueryLog.isWarnEnabled() ) {
+				slowQueryLog.warn((succeeded ? "Search" : "Failed search") + " took " + elapsedInMs + " ms: base=" + base 
+						+ ", scope=" + getScopeName(searchScope) + ", filter=" + filter 
+						+ ", attributes=" + (controls.getReturningAttributes() == null ? "all" : Arrays.asList(controls.getReturningAttributes()))
+						+ ", pageSize=" + pageSize + ", entries=" + measuringHandler.getEntryCount() 
+						+ ", values=" + measuringHandler.getValueCount() + ", bytes=" + measuringHandler.getByteCount());
+			}
+		}
+	}
+	
+	private void searchTemplate(String base, String filter, SearchControls controls, int pageSize, NameClassPairCallbackHandler handler) {
+		if ( pageSize > 0 ) {
+			pagedSearch(base, filter, controls, pageSize, handler);
+		} else {
+			getLdapOperations().search(base, filter, controls, handler);
+		}
+	}
+	
+	/**
+	 * Runs the search page by page with the paged results control. All the pages are 
+	 * retrieved over the same {@code LdapContext} since the cookie returned by the server
+	 * is only valid on the connection that issued it. 
+	 */
+	private void pagedSearch(String base, String filter, SearchControls controls, int pageSize, NameClassPairCallbackHandler handler) {
+		LdapContext ldapContext = getReadOnlyLdapContext();
+		try {
+			byte[] cookie = null;
+			do {
+				Control[] requestControls = new Control[] {new PagedResultsControl(pageSize, cookie, Control.CRITICAL)};
+				cookie = getPagedResultsCookie(search(ldapContext, base, filter, controls, requestControls, handler));
+			} while ( cookie != null && cookie.length > 0 );
+		} catch (javax.naming.NamingException e) {
+			throw LdapUtils.convertLdapException(e);
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to create the paged results control.", e);
+		} finally {
+			LdapUtils.closeContext(ldapContext);
+		}
+	}
+	
+	/**
+	 * Runs the search with the request controls on a read-only {@code LdapContext}.
+	 * 
+	 * @return The response controls returned by the server.
+	 */
+	private Control[] controlledSearch(String base, String filter, SearchControls controls, Control[] requestControls, NameClassPairCallbackHandler handler) {
+		LdapContext ldapContext = getReadOnlyLdapContext();
+		try {
+			return search(ldapContext, base, filter, controls, requestControls, handler);
+		} catch (javax.naming.NamingException e) {
+			throw LdapUtils.convertLdapException(e);
+		} finally {
+			LdapUtils.closeContext(ldapContext);
+		}
+	}
+	
+	private Control[] search(LdapContext ldapContext, String base, String filter, SearchControls controls, 
+			Control[] requestControls, NameClassPairCallbackHandler handler) throws javax.naming.NamingException {
+		//The controls are always cleared before the connection can be reused.
+		ldapContext = getRequestControlsContext(ldapContext);
+		ldapContext.setRequestControls(requestControls);
+		try {
+			NamingEnumeration<SearchResult> results = ldapContext.search(base, filter, controls);
+			try {
+				while ( results.hasMore() ) {
+					handler.handleNameClassPair(results.next());
+				}
+			} finally {
+				results.close();
+			}
+			return ldapContext.getResponseControls();
+		} finally {
+			ldapContext.setRequestControls(null);
+		}
+	}
+	
+	/**
+	 * Pooled contexts refuse request controls, so they are set on the connection itself 
+	 * underneath the tracked and pooled wrappers. 
+	 */
+	private LdapContext getRequestControlsContext(LdapContext ldapContext) {
+		if ( ldapContext instanceof TrackedContext ) {
+			ldapContext = (LdapContext)((TrackedContext)ldapContext).getTargetContext();
+		}
+		if ( ldapContext instanceof DelegatingLdapContext ) {
+			ldapContext = ((DelegatingLdapContext)ldapContext).getInnermostDelegateLdapContext();
+		}
+		return ldapContext;
+	}
+	
+	private LdapContext getReadOnlyLdapContext() {
+		return getLdapContext(getContextSource().getReadOnlyContext());
+	}
+	
+	private LdapContext getLdapContext(DirContext context) {
+		if ( !(context instanceof LdapContext) ) {
+			LdapUtils.closeContext(context);
+			throw new UnsupportedOperationException("Request controls require the ContextSource to provide LdapContext.");
+		}
+		return (LdapContext)context;
+	}
+	
+	private SortControl createSortControl(String sortKey, boolean ascending) throws IOException {
+		return new SortControl(new SortKey[] {new SortKey(sortKey, ascending, null)}, Control.CRITICAL);
+	}
+	
+	private byte[] getPagedResultsCookie(Control[] responseControls) {
+		if ( responseControls != null ) {
+			for ( Control control : responseControls ) {
+				if ( control instanceof PagedResultsResponseControl ) {
+					return ((PagedResultsResponseControl)control).getCookie();
+				}
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * ANDs the object class of the LDAP Entity class into the filter if 
+	 * {@code objectClassFilter} is set and the filter isn't that test alone. The filter is
+	 * not parsed, a test of the object class nested in it, e.g. negated or ORed, doesn't
+	 * constrain the result, and a redundant one costs the server nothing.
+	 */
+	private String getEntityFilter(String filter, Class<? extends LdapEntity> entityClass) {
+		if ( !objectClassFilter ) {
+			return filter;
+		}
+		String objectClass = entityObjectClasses.get(entityClass);
+		if ( objectClass == null ) {
+			try {
+				objectClass = entityClass.newInstance().getObjectClass();
+			} catch (Exception e) {
+				throw new RuntimeException("Unable to instantiate LDAP Entity class: " + entityClass.getName(), e);
+			}
+			entityObjectClasses.putIfAbsent(entityClass, objectClass);
+		}
+		
+		String objectClassFilter = new EqualsFilter(OBJECT_CLASS_ATTRIBUTE, objectClass).encode();
+		if ( StringUtils.isBlank(filter) || CHILDREN_FILTER.equalsIgnoreCase(filter) ) {
+			return objectClassFilter;
+		}
+		if ( filter.trim().equalsIgnoreCase(objectClassFilter) ) {
+			return filter;
+		}
+		return "(&" + objectClassFilter + (filter.startsWith("(") ? filter : "(" + filter + ")") + ")";
+	}
+	
+	private SearchControls getSearchControls(int searchScope, String[] attributes) {
+		//"1.1" asks for no attributes at all, the object classes included.
+		if (attributes != null && !Arrays.asList(attributes).contains(NO_ATTRIBUTES) ) {
+			attributes = addObjectClassIfMissed(attributes);
+		}
+		return getDefaultSearchControls(searchScope, RETURN_OBJ_FLAG, attributes);
+	}
+	
+	private String getScopeName(int searchScope) {
+		switch ( searchScope ) {
+		case SearchControls.OBJECT_SCOPE:
+			return "object";
+		case SearchControls.ONELEVEL_SCOPE:
+			return "onelevel";
+		default:
+			return "subtree";
+		}
+	}
+	
+	/**
+	 * Returns the {@code ContextSource} of the underlying {@code LdapTemplate}.
+	 */
+	private ContextSource getContextSource() {
+		if ( getLdapOperations() instanceof LdapTemplate ) {
+			return ((LdapTemplate)getLdapOperations()).getContextSource();
+		}
+		throw new UnsupportedOperationException("The operation requires JolmLdapTemplate to be backed by LdapTemplate.");
+	}
+	
+	private SearchControls getDefaultSearchControls(int searchScope, boolean returnObjFlag, String[] attributes) {
+        SearchControls controls = new SearchControls();
+        
+        controls.setSearchScope(searchScope);
+        controls.setReturningObjFlag(returnObjFlag);
+        controls.setReturningAttributes(attributes);
+        controls.setTimeLimit(this.searchTimeoutInMs );
+        
+        return controls;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private List<? extends LdapEntity> completeDnInEntities(String baseDn, List<? extends LdapEntity> entities) {
+		for ( LdapEntity entity : entities ) {
+			try {
+				entity.setDn(new DistinguishedName(baseDn).add(entity.getRdn()).toString());
+			} catch (InvalidNameException ignoreIt) {
+				log.warn("Exception occurred while constructing DN.", ignoreIt);
+			}
+		}
+		return entities;
+	}
+
+	private void bindTemplate(DistinguishedName dn, LdapEntity entity) {
+		getLdapOperations().bind(dn, getLdapContextMapper(entity.getClass()).mapToContext(entity), null);
+	}
+	
+	private void modifyTemplate(DistinguishedName dn, LdapEntity entity) {
+		if ( blindModify ) {
+			BlindModificationContext modificationContext = new BlindModificationContext();
+			getLdapContextMapper(entity.getClass()).mapToContext(entity, modificationContext);
+			ModificationItem[] modificationItems = modificationContext.getModificationItems();
+			if ( modificationItems.length > 0 ) {
+				getLdapOperations().modifyAttributes(dn, modificationItems);
+			}
+			clearDirtyAttributes(entity);
+			return;
+		}
+		DirContextOperations dirContext = lookupForWrite(dn);
 		getLdapContextMapper(entity.getClass()).mapToContext(entity, dirContext);
-		getLdapOperations().modifyAttributes(dirContext);				
+		getLdapOperations().modifyAttributes(dirContext);
+		clearDirtyAttributes(entity);
+	}
+	
+	private void recordedModifyTemplate(final DistinguishedName dn, final LdapEntity entity) {
+		recordOperation(LdapMetrics.MODIFY, entity.getClass(), new RecordedOperation<Void>() {
+			public Void execute() {
+				modifyTemplate(dn, entity);
+				return null;
+			}
+		});
+	}
+	
+	private void recordedDeleteTemplate(final String dn, final boolean recursive) {
+		recordOperation(LdapMetrics.DELETE, null, new RecordedOperation<Void>() {
+			public Void execute() {
+				deleteTemplate(dn, recursive);
+				return null;
+			}
+		});
+	}
+	
+	/**
+	 * Executes the operation and records its elapsed time, result size and failure, if 
+	 * any, with the metrics.
+	 */
+	private <T> T recordOperation(String operation, Class<? extends LdapEntity> entityClass, RecordedOperation<T> recordedOperation) {
+		long startTime = System.nanoTime();
+		try {
+			T result = recordedOperation.execute();
+			metrics.recordOperation(operation, entityClass, System.nanoTime() - startTime, recordedOperation.getResultSize(result), null);
+			return result;
+		} catch (RuntimeException e) {
+			metrics.recordOperation(operation, entityClass, System.nanoTime() - startTime, 0, e);
+			throw e;
+		}
+	}
+
+	
+	private void clearDirtyAttributes(LdapEntity entity) {
+		if ( entity instanceof DirtyTrackingLdapEntity ) {
+			((DirtyTrackingLdapEntity)entity).clearDirtyAttributes();
+		}
 	}
 	
 	private void deleteTemplate(String dn, boolean recursive) {
@@ -412,11 +1561,110 @@ public class JolmLdapTemplate extends SimpleLdapTemplate implements JolmLdapOper
 		
 		//This is to make sure that the name actually exists. Throws
 		//NameNotFoundException if it doesn't exist. 
-		getLdapOperations().lookup(distinguishedName);
+		if ( strictDelete ) {
+			checkExists(distinguishedName);
+		}
 		
+		if ( recursive && treeDelete && !Boolean.FALSE.equals(treeDeleteSupported) 
+				&& getLdapOperations() instanceof LdapTemplate && treeDeleteTemplate(distinguishedName) ) {
+			return;
+		}
+		if ( recursive && getLdapOperations() instanceof LdapTemplate ) {
+			deleteSubtreeTemplate(dn);
+			return;
+		}
 		getLdapOperations().unbind(distinguishedName, recursive);
 	}
 	
+	/**
+	 * Deletes the subtree entry by entry, rethrowing the first failure. 
+	 */
+	private void deleteSubtreeTemplate(String dn) {
+		LdapBatchResult result;
+		try {
+			result = deleteSubtree(dn, null);
+		} catch (org.springframework.ldap.NameNotFoundException e) {
+			if ( strictDelete ) {
+				throw e;
+			}
+			return;
+		}
+		//The skipped ancestors are recorded after the failure that caused them.
+		if ( !result.isSuccessful() ) {
+			throw result.getFailures().values().iterator().next();
+		}
+	}
+	
+	/**
+	 * Deletes the subtree by one delete operation with the Tree Delete control.
+	 * 
+	 * @return false if the server refused the operation.
+	 */
+	private boolean treeDeleteTemplate(DistinguishedName dn) {
+		LdapContext ldapContext = getLdapContext(getContextSource().getReadWriteContext());
+		try {
+			LdapContext controlsContext = getRequestControlsContext(ldapContext);
+			controlsContext.setRequestControls(new Control[] {new TreeDeleteControl()});
+			try {
+				controlsContext.unbind(dn);
+			} finally {
+				controlsContext.setRequestControls(null);
+			}
+			treeDeleteSupported = Boolean.TRUE;
+			return true;
+		} catch (javax.naming.OperationNotSupportedException e) {
+			//JNDI raises it for unwillingToPerform too, which may be a refusal of this subtree only.
+			if ( String.valueOf(e.getExplanation()).contains(UNAVAILABLE_CRITICAL_EXTENSION) ) {
+				log.info("The server doesn't support the Tree Delete control, deleting the entries one by one from now on.", e);
+				treeDeleteSupported = Boolean.FALSE;
+			} else {
+				log.info("The server refused the Tree Delete of " + dn + ", deleting its entries one by one instead.", e);
+			}
+			return false;
+		} catch (javax.naming.NamingException e) {
+			throw LdapUtils.convertLdapException(e);
+		} finally {
+			LdapUtils.closeContext(ldapContext);
+		}
+	}
+	
+	/**
+	 * Checks that the entry exists on the server the writes go to, without transferring 
+	 * any of its attributes.
+	 * 
+	 * @throws NameNotFoundException if the entry doesn't exist.
+	 */
+	private void checkExists(final DistinguishedName dn) {
+		if ( !(getLdapOperations() instanceof LdapTemplate) ) {
+			getLdapOperations().lookup(dn);
+			return;
+		}
+		((LdapTemplate)getLdapOperations()).executeReadWrite(new ContextExecutor() {
+			public Object executeWithContext(DirContext ctx) throws javax.naming.NamingException {
+				SearchControls controls = getDefaultSearchControls(SearchControls.OBJECT_SCOPE, false, new String[] {NO_ATTRIBUTES});
+				controls.setCountLimit(1);
+				ctx.search(dn, CHILDREN_FILTER, controls).close();
+				return null;
+			}
+		});
+	}
+	
+	/**
+	 * Looks up the entry a write depends on over a read-write context, so that it is read 
+	 * from the server the write goes to, e.g. the master of a {@code ReplicatedContextSource}
+	 * rather than a lagging replica.
+	 */
+	private DirContextOperations lookupForWrite(final DistinguishedName dn) {
+		if ( !(getLdapOperations() instanceof LdapTemplate) ) {
+			return getLdapOperations().lookupContext(dn);
+		}
+		return (DirContextOperations)((LdapTemplate)getLdapOperations()).executeReadWrite(new ContextExecutor() {
+			public Object executeWithContext(DirContext ctx) throws javax.naming.NamingException {
+				return ctx.lookup(dn);
+			}
+		});
+	}
+	
 
 	/**
 	 * Adds objectClass attribute to attributes list that need to be returned, it has to be
@@ -453,34 +1701,41 @@ public class JolmLdapTemplate extends SimpleLdapTemplate implements JolmLdapOper
 	}
 	
 	private AndFilter getAndFilterFromExample(LdapEntity example, boolean wildcardFilters, boolean logFilter) { 		
-		try {
-			AndFilter filter = new AndFilter();
-	        BeanInfo info = Introspector.getBeanInfo( example.getClass() );
-	        for ( PropertyDescriptor pd : info.getPropertyDescriptors() ) {
-	        	if ( isAttributeApplicableInFilter(pd) ) {
-	        		Object value = pd.getReadMethod().invoke(example);
-	        		if ( value != null ) {
-		        		if ( value.getClass().isArray() ) {
-		        			Object[] valueArray = (Object[])value;
-		        			for ( Object o : valueArray ) {
-			        			addAndFilter(filter, pd, o, wildcardFilters);		        				
-		        			}
-		        		} else {
-			        		if ( StringUtils.isNotEmpty(value.toString())) {
-			        			addAndFilter(filter, pd, value, wildcardFilters);
-			        		}
-		        		}
-	        		}
-	        	}
-	        }
-			
-			if ( logFilter && log.isDebugEnabled() ) {
-				log.debug("Finding " + example.getClass().getSimpleName() + "(s) using filter: " + filter.encode());
-			}		
-			return filter;
-		} catch (Exception e) {
-			throw new RuntimeException("Unable to create the filter from ldap entity:" + example, e);
-		}  
+		AndFilter filter;
+		LdapContextMapper contextMapper = getLdapContextMapper(example.getClass());
+		if ( contextMapper instanceof ExampleFilterMapper ) {
+			filter = ((ExampleFilterMapper)contextMapper).toExampleFilter(example, wildcardFilters);
+		} else {
+			filter = getAndFilterFromProperties(example, wildcardFilters);
+		}
+		
+		if ( logFilter && log.isDebugEnabled() ) {
+			log.debug("Finding " + example.getClass().getSimpleName() + "(s) using filter: " + filter.encode());
+		}		
+		return filter;
+	}
+	
+	private AndFilter getAndFilterFromProperties(LdapEntity example, boolean wildcardFilters) {
+		AndFilter filter = new AndFilter();
+		for ( LdapEntityProperties.Property property : contextMapperRegistry.getLdapEntityProperties(example.getClass()).getFilterableProperties() ) {
+			Object value = property.getValue(example);
+			if ( value != null ) {
+				if ( property.isMultiValues() ) {
+					//Empty values are skipped like the generated mappers do.
+					Object[] valueArray = (Object[])value;
+					for ( Object o : valueArray ) {
+						if ( o != null && StringUtils.isNotEmpty(o.toString()) ) {
+							addAndFilter(filter, property.getName(), o, wildcardFilters);
+						}
+					}
+				} else {
+					if ( StringUtils.isNotEmpty(value.toString())) {
+						addAndFilter(filter, property.getName(), value, wildcardFilters);
+					}
+				}
+			}
+		}
+		return filter;
 	}
 	
 	private AndFilter getAndFilterFromExample(LdapEntity example, boolean wildcardFilters) { 		
@@ -488,67 +1743,565 @@ public class JolmLdapTemplate extends SimpleLdapTemplate implements JolmLdapOper
 	}
 
 
-	private void addAndFilter(AndFilter filter, PropertyDescriptor pd,
+	private void addAndFilter(AndFilter filter, String attributeName,
 			Object value, boolean wildcardFilters) {
 		if ( wildcardFilters ) {
-			filter.and(new WhitespaceWildcardsFilter(pd.getName(), value.toString()));
+			filter.and(new WhitespaceWildcardsFilter(attributeName, value.toString()));
 		} else {
-			filter.and(new EqualsFilter(pd.getName(), value.toString()));
+			filter.and(new EqualsFilter(attributeName, value.toString()));
 		}
 	}
 
-	private List<? extends LdapEntity> filterAttributes(List<LdapEntity> entities, String[] attributes) {
-		if ( entities == null || entities.size() == 0) {
-			return entities;
+	/**
+	 * Searches the chunks of {@code examplesChunkSize} examples in parallel and merges the 
+	 * results, dropping the entities found by more than one chunk.
+	 */
+	private List<? extends LdapEntity> findByExampleChunks(final String base, LdapEntity[] examples, final String[] attributes, 
+			final boolean wildcardFilters, final int pageSize) {
+		final Class<? extends LdapEntity> entityClass = examples[0].getClass();
+		List<Callable<List<? extends LdapEntity>>> searches = new ArrayList<Callable<List<? extends LdapEntity>>>();
+		List<LdapEntity> exampleList = Arrays.asList(examples);
+		for ( int from = 0; from < examples.length; from += examplesChunkSize ) {
+			List<LdapEntity> chunkList = exampleList.subList(from, Math.min(from + examplesChunkSize, examples.length));
+			final LdapEntity[] chunk = chunkList.toArray(new LdapEntity[chunkList.size()]);
+			searches.add(new Callable<List<? extends LdapEntity>>() {
+				public List<? extends LdapEntity> call() {
+					String filter = getOrFilterFromExamples(chunk, wildcardFilters).encode();
+					return searchTemplate(base, filter, entityClass, attributes, SearchControls.SUBTREE_SCOPE, pageSize);
+				}
+			});
 		}
-		List<String> attributesAsList = Arrays.asList(attributes);
-		for ( LdapEntity entity : entities) {
-			BeanInfo beanInfo;
-			try {
-				beanInfo = Introspector.getBeanInfo(entity.getClass());
-				PropertyDescriptor[] propertyDescriptors = beanInfo.getPropertyDescriptors();
-				for ( PropertyDescriptor pd : propertyDescriptors ) {
-					if ( isAttributeFiltered(pd.getName(), attributesAsList) ) {
-						Method writeMethod = pd.getWriteMethod();
-						writeMethod.invoke(entity, new Object[] {null});
-					}
+		
+		List<LdapEntity> entities = new ArrayList<LdapEntity>();
+		Set<String> dns = new HashSet<String>();
+		for ( List<? extends LdapEntity> chunkEntities : executeConcurrently(searches) ) {
+			for ( LdapEntity entity : chunkEntities ) {
+				if ( entity.getDn() == null || dns.add(normalizeDn(entity.getDn())) ) {
+					entities.add(entity);
 				}
-			} catch (Exception e) {
-				//Should never happen
-				throw new RuntimeException(e);
 			}
 		}
+		
+		if ( log.isDebugEnabled() ) {
+			log.debug("Found " + entities.size() + " " + entityClass.getSimpleName() + "(s) by " + examples.length 
+					+ " examples in " + searches.size() + " chunks");
+		}
 		return entities;
 	}
-
-	private boolean isAttributeFiltered(String fieldName, List<String> attributes) {
-		return !(attributes.contains(fieldName) || isReservedField(fieldName));
-	}	
-
+	
+	/**
+	 * Runs the tasks in parallel by up to {@code batchConcurrency} threads and returns their
+	 * results in the order of the tasks. The first failure is rethrown after the rest of the 
+	 * tasks are cancelled.
+	 */
+	private <T> List<T> executeConcurrently(List<Callable<T>> tasks) {
+		List<T> results = new ArrayList<T>(tasks.size());
+		if ( tasks.size() <= 1 ) {
+			for ( Callable<T> task : tasks ) {
+				try {
+					results.add(task.call());
+				} catch (RuntimeException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+			return results;
+		}
+		
+		ExecutorService executorService = batchExecutorService;
+		boolean ownExecutorService = executorService == null;
+		if ( ownExecutorService ) {
+			executorService = Executors.newFixedThreadPool(Math.min(batchConcurrency, tasks.size()));
+		}
+		
+		List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+		try {
+			for ( Callable<T> task : tasks ) {
+				futures.add(executorService.submit(task));
+			}
+			for ( Future<T> future : futures ) {
+				results.add(future.get());
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if ( cause instanceof RuntimeException ) {
+				throw (RuntimeException)cause;
+			}
+			if ( cause instanceof Error ) {
+				throw (Error)cause;
+			}
+			throw new RuntimeException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while executing concurrent searches.", e);
+		} finally {
+			for ( Future<T> future : futures ) {
+				future.cancel(true);
+			}
+			if ( ownExecutorService ) {
+				executorService.shutdown();
+			}
+		}
+		return results;
+	}
+	
+	/**
+	 * {@code DistinguishedName.equals} ignores case but its {@code hashCode} doesn't, so 
+	 * DNs are compared by their lower-cased string form.
+	 */
+	private String normalizeDn(String dn) {
+		return new DistinguishedName(dn).toString().toLowerCase();
+	}
+	
+	/**
+	 * Finds the setter of the child array on the parent that the entry with the object classes
+	 * belongs to. The child types are taken from the parameter types of the setters named after
+	 * {@code getChildObjectClasses()}, the way maven-jolm-plugin generates them. 
+	 */
+	private Method findChildSetter(LdapEntity parent, String[] objectClasses, 
+			Map<Class<?>, List<Method>> childSetters, Map<Class<?>, LdapEntity> prototypes) {
+		if ( objectClasses == null ) {
+			return null;
+		}
+		List<Method> setters = childSetters.get(parent.getClass());
+		if ( setters == null ) {
+			setters = new ArrayList<Method>();
+			for ( String childObjectClass : parent.getChildObjectClasses() ) {
+				String setterName = "set" + StringUtils.capitalize(childObjectClass) + "s";
+				for ( Method method : parent.getClass().getMethods() ) {
+					if ( method.getName().equals(setterName) && method.getParameterTypes().length == 1 
+							&& getChildType(method) != null ) {
+						setters.add(method);
+					}
+				}
+			}
+			childSetters.put(parent.getClass(), setters);
+		}
+		
+		Method result = null;
+		LdapEntity resultPrototype = null;
+		for ( Method setter : setters ) {
+			Class<? extends LdapEntity> childType = getChildType(setter);
+			LdapEntity prototype = prototypes.get(childType);
+			if ( prototype == null ) {
+				try {
+					prototype = childType.newInstance();
+				} catch (Exception e) {
+					throw new RuntimeException("Unable to instantiate LDAP Entity class: " + childType.getName(), e);
+				}
+				prototypes.put(childType, prototype);
+			}
+			if ( containsIgnoreCase(objectClasses, prototype.getObjectClass())
+					&& (resultPrototype == null || prototype.getObjectClasses().length > resultPrototype.getObjectClasses().length) ) {
+				result = setter;
+				resultPrototype = prototype;
+			}
+		}
+		return result;
+	}
+	
+	private boolean containsIgnoreCase(String[] array, String value) {
+		for ( String item : array ) {
+			if ( item != null && item.equalsIgnoreCase(value) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
 	@SuppressWarnings("unchecked")
-	private static List applicableTypesInFilter = Arrays.asList(String.class, String[].class);
+	private Class<? extends LdapEntity> getChildType(Method setter) {
+		Class<?> parameterType = setter.getParameterTypes()[0];
+		if ( parameterType.isArray() && LdapEntity.class.isAssignableFrom(parameterType.getComponentType()) ) {
+			return (Class<? extends LdapEntity>)parameterType.getComponentType();
+		}
+		return null;
+	}
+	
+	private String getRequiredDn(LdapEntity entity) {
+		if ( StringUtils.isEmpty(entity.getDn()) ) {
+			throw new IllegalArgumentException("The 'dn' field in the entity can not be empty with batch operations.");
+		}
+		return entity.getDn();
+	}
+	
+	/**
+	 * Runs the operations level by level in the given order of DN depth, or all at once 
+	 * with {@code ANY_ORDER}. 
+	 */
+	private LdapBatchResult executeBatch(List<BatchOperation> operations, int order) {
+		return executeBatch(operations, order, null);
+	}
+	
+	private LdapBatchResult executeBatch(List<BatchOperation> operations, int order, LdapBatchProgressHandler progressHandler) {
+		LdapBatchResult result = new LdapBatchResult();
+		ExecutorService executorService = batchExecutorService;
+		boolean ownExecutorService = executorService == null && batchConcurrency > 1 && operations.size() > 1;
+		if ( ownExecutorService ) {
+			executorService = Executors.newFixedThreadPool(Math.min(batchConcurrency, operations.size()));
+		}
+		
+		try {
+			List<DistinguishedName> failedDns = new ArrayList<DistinguishedName>();
+			for ( List<BatchOperation> level : groupByDepth(operations, order) ) {
+				List<BatchOperation> runnableOperations = new ArrayList<BatchOperation>();
+				for ( BatchOperation operation : level ) {
+					DistinguishedName failedAncestor = order == PARENTS_FIRST ? findAncestor(failedDns, operation.getDistinguishedName()) : null;
+					DistinguishedName failedDescendant = order == CHILDREN_FIRST ? findDescendant(failedDns, operation.getDistinguishedName()) : null;
+					if ( failedAncestor != null ) {
+						result.addFailure(operation.getDn(), new IllegalStateException("Skipped since its ancestor " + failedAncestor + " failed."));
+						failedDns.add(operation.getDistinguishedName());
+					} else if ( failedDescendant != null ) {
+						result.addFailure(operation.getDn(), new IllegalStateException("Skipped since its descendant " + failedDescendant + " failed."));
+						failedDns.add(operation.getDistinguishedName());
+					} else {
+						runnableOperations.add(operation);
+					}
+				}
+				executeBatchLevel(runnableOperations, executorService, result, failedDns);
+				if ( progressHandler != null ) {
+					progressHandler.handleProgress(result, operations.size());
+				}
+			}
+		} finally {
+			if ( ownExecutorService ) {
+				executorService.shutdown();
+			}
+			recordConcurrentWrites(executorService);
+		}
+		
+		if ( log.isDebugEnabled() ) {
+			log.debug("Executed batch of " + operations.size() + " operation(s): " + result);
+		}
+		return result;
+	}
+	
+	/**
+	 * The concurrent writes took their read-write contexts in the executor's threads, so the
+	 * read-your-writes window of a {@code ReplicatedContextSource} is started for the calling
+	 * thread as well.
+	 */
+	private void recordConcurrentWrites(ExecutorService executorService) {
+		if ( executorService != null && getLdapOperations() instanceof LdapTemplate 
+				&& getContextSource() instanceof ReplicatedContextSource ) {
+			((ReplicatedContextSource)getContextSource()).recordWrite();
+		}
+	}
+	
+	private void executeBatchLevel(List<BatchOperation> operations, ExecutorService executorService, 
+			LdapBatchResult result, List<DistinguishedName> failedDns) {
+		if ( executorService == null || operations.size() == 1 ) {
+			for ( BatchOperation operation : operations ) {
+				try {
+					operation.execute();
+					result.addSuccess(operation.getDn());
+				} catch (RuntimeException e) {
+					result.addFailure(operation.getDn(), e);
+					failedDns.add(operation.getDistinguishedName());
+				}
+			}
+			return;
+		}
+		
+		List<Future<Object>> futures = new ArrayList<Future<Object>>(operations.size());
+		for ( BatchOperation operation : operations ) {
+			futures.add(executorService.submit(operation));
+		}
+		for ( int i = 0; i < futures.size(); i++ ) {
+			BatchOperation operation = operations.get(i);
+			try {
+				futures.get(i).get();
+				result.addSuccess(operation.getDn());
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if ( cause instanceof Error ) {
+					throw (Error)cause;
+				}
+				result.addFailure(operation.getDn(), cause instanceof RuntimeException ? (RuntimeException)cause : new RuntimeException(cause));
+				failedDns.add(operation.getDistinguishedName());
+			} catch (InterruptedException e) {
+				for ( Future<Object> future : futures ) {
+					future.cancel(true);
+				}
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while executing batch operations.", e);
+			}
+		}
+	}
+	
+	private Collection<List<BatchOperation>> groupByDepth(List<BatchOperation> operations, int order) {
+		if ( order == ANY_ORDER ) {
+			return Collections.singletonList(operations);
+		}
+		Map<Integer, List<BatchOperation>> levels = new TreeMap<Integer, List<BatchOperation>>(
+				order == CHILDREN_FIRST ? Collections.<Integer>reverseOrder() : null);
+		for ( BatchOperation operation : operations ) {
+			Integer depth = operation.getDistinguishedName().size();
+			List<BatchOperation> level = levels.get(depth);
+			if ( level == null ) {
+				level = new ArrayList<BatchOperation>();
+				levels.put(depth, level);
+			}
+			level.add(operation);
+		}
+		return levels.values();
+	}
+	
+	private DistinguishedName findAncestor(List<DistinguishedName> dns, DistinguishedName dn) {
+		for ( DistinguishedName ancestor : dns ) {
+			if ( dn.startsWith(ancestor) ) {
+				return ancestor;
+			}
+		}
+		return null;
+	}
+	
+	private DistinguishedName findDescendant(List<DistinguishedName> dns, DistinguishedName dn) {
+		for ( DistinguishedName descendant : dns ) {
+			if ( descendant.startsWith(dn) ) {
+				return descendant;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * An operation whose metrics are recorded by {@code recordOperation}.
+	 */
+	private abstract static class RecordedOperation<T> {
+		public abstract T execute();
+		
+		/**
+		 * @return The number of entries of the result, the size of a collection by default.
+		 */
+		public int getResultSize(T result) {
+			return result instanceof Collection<?> ? ((Collection<?>)result).size() : 0;
+		}
+	}
+	
+	/**
+	 * A single operation of a batch on one DN.
+	 */
+	private abstract static class BatchOperation implements Callable<Object> {
+		private final String dn;
+		private final DistinguishedName distinguishedName;
+		
+		public BatchOperation(String dn) {
+			this.dn = dn;
+			this.distinguishedName = new DistinguishedName(dn);
+		}
+		
+		public String getDn() {
+			return dn;
+		}
+		
+		public DistinguishedName getDistinguishedName() {
+			return distinguishedName;
+		}
+		
+		public abstract void execute();
+		
+		public Object call() {
+			execute();
+			return null;
+		}
+	}
 	
-	private boolean isAttributeApplicableInFilter(PropertyDescriptor pd) {
-		String propertyName = pd.getName();
-		return applicableTypesInFilter.contains(pd.getPropertyType()) && !isReservedField(propertyName);
+	/**
+	 * Maps each search result and passes it to {@code LdapEntityCallbackHandler} right away 
+	 * instead of collecting it. Entries the mapper doesn't recognize are skipped.
+	 */
+	private static class StreamingCallbackHandler extends ContextMapperCallbackHandler {
+		private final LdapEntityCallbackHandler callbackHandler;
+		
+		public StreamingCallbackHandler(ContextMapper contextMapper, LdapEntityCallbackHandler callbackHandler) {
+			super(contextMapper);
+			this.callbackHandler = callbackHandler;
+		}
+		
+		public void handleNameClassPair(NameClassPair nameClassPair) {
+			LdapEntity entity = (LdapEntity)getObjectFromNameClassPair(nameClassPair);
+			if ( entity != null ) {
+				callbackHandler.handleLdapEntity(entity);
+			}
+		}
 	}
 
-	private static List<String> reservedAttributeNames = 
-		Arrays.asList("class", "objectClass", "objectClasses", "childObjectClasses", "dn", "rdn", "parentDn");
+	/**
+	 * Counts the entries and the attribute values returned by a search for the slow query 
+	 * log before passing them on. Binary values are counted by their length and strings by
+	 * their UTF-8 encoded length, as LDAP sends them.
+	 */
+	private static class MeasuringCallbackHandler implements NameClassPairCallbackHandler {
+		private final NameClassPairCallbackHandler handler;
+		private int entryCount;
+		private int valueCount;
+		private long byteCount;
+		
+		public MeasuringCallbackHandler(NameClassPairCallbackHandler handler) {
+			this.handler = handler;
+		}
+		
+		public void handleNameClassPair(NameClassPair nameClassPair) {
+			entryCount++;
+			if ( nameClassPair instanceof SearchResult && ((SearchResult)nameClassPair).getAttributes() != null ) {
+				try {
+					NamingEnumeration<? extends Attribute> attributes = ((SearchResult)nameClassPair).getAttributes().getAll();
+					while ( attributes.hasMore() ) {
+						Attribute attribute = attributes.next();
+						for ( int i = 0; i < attribute.size(); i++ ) {
+							Object value = attribute.get(i);
+							valueCount++;
+							if ( value instanceof byte[] ) {
+								byteCount += ((byte[])value).length;
+							} else if ( value != null ) {
+								byteCount += getUtf8Length(value.toString());
+							}
+						}
+					}
+				} catch (javax.naming.NamingException e) {
+					throw LdapUtils.convertLdapException(e);
+				}
+			}
+			handler.handleNameClassPair(nameClassPair);
+		}
+		
+		public int getEntryCount() {
+			return entryCount;
+		}
+		
+		public int getValueCount() {
+			return valueCount;
+		}
+		
+		public long getByteCount() {
+			return byteCount;
+		}
+		
+		/**
+		 * Counts the UTF-8 encoded length without encoding the value.
+		 */
+		private static int getUtf8Length(String value) {
+			int length = 0;
+			for ( int i = 0; i < value.length(); i++ ) {
+				char c = value.charAt(i);
+				if ( c < 0x80 ) {
+					length++;
+				} else if ( c < 0x800 ) {
+					length += 2;
+				} else if ( Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1)) ) {
+					length += 4;
+					i++;
+				} else {
+					length += 3;
+				}
+			}
+			return length;
+		}
+	}
+	
+	/**
+	 * An LDAP Entity loaded by {@code loadTree} with its children grouped by the setter
+	 * of the child array they go to.
+	 */
+	private static class TreeNode {
+		private final LdapEntity entity;
+		private final Map<Method, List<LdapEntity>> children = new LinkedHashMap<Method, List<LdapEntity>>();
+		
+		public TreeNode(LdapEntity entity) {
+			this.entity = entity;
+		}
+		
+		public LdapEntity getEntity() {
+			return entity;
+		}
+		
+		public void addChild(Method setter, LdapEntity child) {
+			List<LdapEntity> list = children.get(setter);
+			if ( list == null ) {
+				list = new ArrayList<LdapEntity>();
+				children.put(setter, list);
+			}
+			list.add(child);
+		}
+		
+		public void populateChildren() {
+			for ( Map.Entry<Method, List<LdapEntity>> entry : children.entrySet() ) {
+				Method setter = entry.getKey();
+				List<LdapEntity> list = entry.getValue();
+				Object array = Array.newInstance(setter.getParameterTypes()[0].getComponentType(), list.size());
+				try {
+					setter.invoke(entity, new Object[] {list.toArray((Object[])array)});
+				} catch (Exception e) {
+					throw new RuntimeException("Unable to set the children by " + setter.getName() + " on " + entity.getDn(), e);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Maps each entry by the {@code LdapContextMapper} picked by its object classes.
+	 */
+	private static class PolymorphicContextMapper implements ContextMapper {
+		private final LdapContextMapperRegistry contextMapperRegistry;
+		
+		public PolymorphicContextMapper(LdapContextMapperRegistry contextMapperRegistry) {
+			this.contextMapperRegistry = contextMapperRegistry;
+		}
+		
+		public Object mapFromContext(Object ctx) {
+			DirContextOperations context = (DirContextOperations)ctx;
+			LdapContextMapper contextMapper = contextMapperRegistry.getLdapContextMapper(context.getStringAttributes("objectClass"));
+			if ( contextMapper == null ) {
+				if ( log.isDebugEnabled() ) {
+					log.debug("Skipped " + context.getDn() + " as none of its object classes is mapped");
+				}
+				return null;
+			}
+			return contextMapper.mapFromContext(context);
+		}
+	}
 	
-	private boolean isReservedField(String attributeName) {
-		return reservedAttributeNames.contains(attributeName);
+	/**
+	 * Collects the LDAP Entities handed out by {@code StreamingCallbackHandler}.
+	 */
+	private static class CollectingCallbackHandler implements LdapEntityCallbackHandler {
+		private final List<LdapEntity> list = new ArrayList<LdapEntity>();
+		
+		public void handleLdapEntity(LdapEntity entity) {
+			list.add(entity);
+		}
+		
+		public List<LdapEntity> getList() {
+			return list;
+		}
 	}
 
 	public String getContextMappersPackage() {
-		return contextMappersPackage;
+		return contextMapperRegistry.getContextMappersPackage();
 	}
 
 	public void setContextMappersPackage(String contextMappersPackage) {
-		this.contextMappersPackage = contextMappersPackage;
+		contextMapperRegistry.setContextMappersPackage(contextMappersPackage);
+	}
+	
+	public boolean isPreloadContextMappers() {
+		return preloadContextMappers;
+	}
+
+	/**
+	 * Indicates whether to instantiate all the mappers in {@code contextMappersPackage} 
+	 * in {@code afterPropertiesSet}. Defaults to true.
+	 */
+	public void setPreloadContextMappers(boolean preloadContextMappers) {
+		this.preloadContextMappers = preloadContextMappers;
 	}
 	
 	public void afterPropertiesSet() throws Exception {
-		Assert.notNull(contextMappersPackage, "contextMappersPackage must be set");
+		Assert.notNull(getContextMappersPackage(), "contextMappersPackage must be set");
+		if ( preloadContextMappers ) {
+			contextMapperRegistry.preload();
+		}
 	}
 }
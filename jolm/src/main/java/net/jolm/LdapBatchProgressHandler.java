@@ -0,0 +1,36 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm;
+
+/**
+ * Callback interface used by the batch operations that run level by level. It is called 
+ * on the calling thread after each level of DN depth completes, so long running batches 
+ * can report their progress.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ * 
+ * @see net.jolm.JolmLdapOperations#deleteSubtree(String, LdapBatchProgressHandler)
+ */
+public interface LdapBatchProgressHandler {
+	/**
+	 * Handles the progress of the batch.
+	 * 
+	 * @param result The outcome per DN so far.
+	 * @param totalCount The number of DNs in the batch.
+	 */
+	public void handleProgress(LdapBatchResult result, int totalCount);
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a batch operation, recording per DN whether the operation succeeded or the
+ * exception it failed with. A failed item doesn't stop the rest of the batch.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ * 
+ * @see net.jolm.JolmLdapOperations#createAll(List)
+ * @see net.jolm.JolmLdapOperations#modifyAll(List)
+ * @see net.jolm.JolmLdapOperations#deleteAll(List)
+ */
+public class LdapBatchResult {
+	private final List<String> succeededDns = new ArrayList<String>();
+	private final Map<String, RuntimeException> failures = new LinkedHashMap<String, RuntimeException>();
+	
+	public synchronized void addSuccess(String dn) {
+		succeededDns.add(dn);
+	}
+	
+	public synchronized void addFailure(String dn, RuntimeException cause) {
+		failures.put(dn, cause);
+	}
+	
+	/**
+	 * @return The DNs the operation succeeded for, in the order they completed.
+	 */
+	public synchronized List<String> getSucceededDns() {
+		return Collections.unmodifiableList(new ArrayList<String>(succeededDns));
+	}
+	
+	/**
+	 * @return The exceptions keyed by the DNs the operation failed for.
+	 */
+	public synchronized Map<String, RuntimeException> getFailures() {
+		return Collections.unmodifiableMap(new LinkedHashMap<String, RuntimeException>(failures));
+	}
+	
+	/**
+	 * @return The exception the operation failed with for the DN, or null if it didn't fail.
+	 */
+	public synchronized RuntimeException getFailure(String dn) {
+		return failures.get(dn);
+	}
+	
+	/**
+	 * @return true if the operation succeeded for all the DNs.
+	 */
+	public synchronized boolean isSuccessful() {
+		return failures.isEmpty();
+	}
+	
+	public synchronized int getSucceededCount() {
+		return succeededDns.size();
+	}
+	
+	public synchronized int getFailedCount() {
+		return failures.size();
+	}
+	
+	public synchronized String toString() {
+		return "LdapBatchResult[succeeded=" + succeededDns.size() + ", failed=" + failures.size() + "]";
+	}
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+/**
+ * Keeps one {@code LdapContextMapper} instance per LDAP Entity class. Mappers
+ * generated by maven-jolm-plugin are stateless, so a single instance can be
+ * shared by all threads.
+ *
+ * <p>Mappers are resolved by naming convention, i.e.
+ * {@code <contextMappersPackage>.<EntitySimpleName>Mapper}, the first time an
+ * entity class is asked for, unless they have been registered explicitly or
+ * preloaded with {@link #preload()}.</p>
+ *
+ * <p>Entries of different object classes are dispatched to the mapper of their most 
+ * specific LDAP Entity class by {@link #getLdapContextMapper(String[])}, which uses the
+ * {@code ObjectClassIndex} generated into the context mappers package, or the preloaded
+ * mappers if there is none.</p>
+ *
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public class LdapContextMapperRegistry {
+	private final static Log log = LogFactory.getLog(LdapContextMapperRegistry.class);
+	private final static String MAPPERS_SUFFIX = "Mapper";
+	//Marks the object class combinations that no LDAP Entity class is mapped to.
+	private final static Class<?> NO_ENTITY_CLASS = Void.class;
+
+	private final ConcurrentMap<Class<?>, LdapContextMapper> contextMappers =
+		new ConcurrentHashMap<Class<?>, LdapContextMapper>();
+	private final ConcurrentMap<Class<?>, LdapEntityProperties> ldapEntityProperties =
+		new ConcurrentHashMap<Class<?>, LdapEntityProperties>();
+	private final ConcurrentMap<String, Class<?>> entityClassesByObjectClasses =
+		new ConcurrentHashMap<String, Class<?>>();
+	private volatile Map<String, Class<? extends LdapEntity>> objectClassIndex;
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private String contextMappersPackage;
+
+	public LdapContextMapperRegistry() {
+	}
+
+	public LdapContextMapperRegistry(String contextMappersPackage) {
+		this.contextMappersPackage = contextMappersPackage;
+	}
+
+	/**
+	 * Returns the {@code LdapContextMapper} instance for a {@code ldapEntityClass}. The
+	 * mapper is instantiated on the first call and cached afterwards.
+	 *
+	 * @param ldapEntityClass The LDAP Entity class.
+	 * @return {@code LdapContextMapper} instance.
+	 */
+	public LdapContextMapper getLdapContextMapper(Class<? extends LdapEntity> ldapEntityClass) {
+		LdapContextMapper contextMapper = contextMappers.get(ldapEntityClass);
+		if ( contextMapper != null ) {
+			hitCount.incrementAndGet();
+			return contextMapper;
+		}
+
+		missCount.incrementAndGet();
+		contextMapper = createLdapContextMapper(ldapEntityClass);
+		LdapContextMapper existing = contextMappers.putIfAbsent(ldapEntityClass, contextMapper);
+		return existing != null ? existing : contextMapper;
+	}
+
+	/**
+	 * Returns the properties of an LDAP Entity class, introspected on the first call and
+	 * cached afterwards. The cache lives as long as this registry, unlike a static one it 
+	 * doesn't keep the entity classes and their class loaders from being unloaded.
+	 *
+	 * @param ldapEntityClass The LDAP Entity class.
+	 * @return {@code LdapEntityProperties} of the class.
+	 */
+	public LdapEntityProperties getLdapEntityProperties(Class<?> ldapEntityClass) {
+		LdapEntityProperties properties = ldapEntityProperties.get(ldapEntityClass);
+		if ( properties == null ) {
+			properties = LdapEntityProperties.forClass(ldapEntityClass);
+			LdapEntityProperties existing = ldapEntityProperties.putIfAbsent(ldapEntityClass, properties);
+			if ( existing != null ) {
+				properties = existing;
+			}
+		}
+		return properties;
+	}
+
+	/**
+	 * Registers a mapper explicitly for an LDAP Entity class. Replaces the mapper
+	 * that has been registered or resolved before.
+	 *
+	 * @param ldapEntityClass The LDAP Entity class.
+	 * @param contextMapper The mapper to be used for the LDAP Entity class.
+	 */
+	public void register(Class<? extends LdapEntity> ldapEntityClass, LdapContextMapper contextMapper) {
+		if ( ldapEntityClass == null || contextMapper == null ) {
+			throw new IllegalArgumentException("Both LDAP Entity class and context mapper are required.");
+		}
+		contextMappers.put(ldapEntityClass, contextMapper);
+		resetObjectClassIndex();
+	}
+	
+	/**
+	 * Returns the {@code LdapContextMapper} for an entry by the values of its 
+	 * {@code objectClass} attribute. When several object classes are mapped, the mapper of 
+	 * the most specific LDAP Entity class, i.e. the one with most object classes inherited, 
+	 * is returned. The resolution is cached per object class combination.
+	 *
+	 * @param objectClasses The object classes of the entry.
+	 * @return {@code LdapContextMapper} instance, or null if none of the object classes is mapped.
+	 */
+	public LdapContextMapper getLdapContextMapper(String[] objectClasses) {
+		Class<? extends LdapEntity> ldapEntityClass = getLdapEntityClass(objectClasses);
+		return ldapEntityClass == null ? null : getLdapContextMapper(ldapEntityClass);
+	}
+	
+	/**
+	 * Returns the most specific LDAP Entity class mapped to any of the object classes.
+	 * 
+	 * @param objectClasses The object classes of the entry.
+	 * @return The LDAP Entity class, or null if none of the object classes is mapped.
+	 */
+	@SuppressWarnings("unchecked")
+	public Class<? extends LdapEntity> getLdapEntityClass(String[] objectClasses) {
+		if ( objectClasses == null || objectClasses.length == 0 ) {
+			return null;
+		}
+		
+		String key = getObjectClassesKey(objectClasses);
+		Class<?> ldapEntityClass = entityClassesByObjectClasses.get(key);
+		if ( ldapEntityClass == null ) {
+			ldapEntityClass = resolveLdapEntityClass(objectClasses);
+			entityClassesByObjectClasses.putIfAbsent(key, ldapEntityClass);
+		}
+		return ldapEntityClass == NO_ENTITY_CLASS ? null : (Class<? extends LdapEntity>)ldapEntityClass;
+	}
+
+	/**
+	 * Instantiates all the {@code *Mapper} classes found in the context mappers package and
+	 * registers them by the LDAP Entity class returned from their {@code mapFromContext} method.
+	 *
+	 * @return Number of mappers registered.
+	 */
+	public int preload() {
+		if ( contextMappersPackage == null ) {
+			return 0;
+		}
+
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+		String pattern = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
+			contextMappersPackage.replace('.', '/') + "/*" + MAPPERS_SUFFIX + ".class";
+		Resource[] resources;
+		try {
+			resources = resolver.getResources(pattern);
+		} catch (IOException e) {
+			log.warn("Unable to scan context mappers under " + pattern, e);
+			return 0;
+		}
+
+		int count = 0;
+		for ( Resource resource : resources ) {
+			String fileName = resource.getFilename();
+			String mapperClassName = contextMappersPackage + "." + fileName.substring(0, fileName.length() - ".class".length());
+			try {
+				Class<?> mapperClass = classLoader.loadClass(mapperClassName);
+				if ( !LdapContextMapper.class.isAssignableFrom(mapperClass) ) {
+					continue;
+				}
+				Method mapFromContext = mapperClass.getMethod("mapFromContext", Object.class);
+				Class<?> ldapEntityClass = mapFromContext.getReturnType();
+				if ( LdapEntity.class.isAssignableFrom(ldapEntityClass) ) {
+					contextMappers.putIfAbsent(ldapEntityClass, (LdapContextMapper)mapperClass.newInstance());
+					count++;
+				}
+			} catch (Exception e) {
+				log.warn("Unable to preload context mapper class: " + mapperClassName, e);
+			}
+		}
+
+		if ( log.isDebugEnabled() ) {
+			log.debug("Preloaded " + count + " context mapper(s) from " + contextMappersPackage);
+		}
+		return count;
+	}
+
+	/**
+	 * Removes all the cached mappers and properties and resets the counters.
+	 */
+	public void clear() {
+		contextMappers.clear();
+		ldapEntityProperties.clear();
+		resetObjectClassIndex();
+		hitCount.set(0);
+		missCount.set(0);
+	}
+
+	/**
+	 * @return Number of lookups served from the cached mappers.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * @return Number of lookups that had to resolve and instantiate the mapper.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * @return Number of mappers currently cached.
+	 */
+	public int size() {
+		return contextMappers.size();
+	}
+
+	public String getContextMappersPackage() {
+		return contextMappersPackage;
+	}
+
+	public void setContextMappersPackage(String contextMappersPackage) {
+		this.contextMappersPackage = contextMappersPackage;
+		resetObjectClassIndex();
+	}
+	
+	private Class<?> resolveLdapEntityClass(String[] objectClasses) {
+		Map<String, Class<? extends LdapEntity>> index = getObjectClassIndex();
+		Class<?> result = NO_ENTITY_CLASS;
+		int resultDepth = 0;
+		for ( String objectClass : objectClasses ) {
+			Class<? extends LdapEntity> ldapEntityClass = objectClass == null ? null : index.get(objectClass.toLowerCase());
+			if ( ldapEntityClass != null ) {
+				int depth = createLdapEntity(ldapEntityClass).getObjectClasses().length;
+				if ( depth > resultDepth ) {
+					result = ldapEntityClass;
+					resultDepth = depth;
+				}
+			}
+		}
+		return result;
+	}
+	
+	private synchronized Map<String, Class<? extends LdapEntity>> getObjectClassIndex() {
+		if ( objectClassIndex != null ) {
+			return objectClassIndex;
+		}
+		
+		Map<String, Class<? extends LdapEntity>> index = new HashMap<String, Class<? extends LdapEntity>>();
+		if ( contextMappersPackage != null ) {
+			String indexClassName = contextMappersPackage + "." + ObjectClassIndex.GENERATED_CLASS_NAME;
+			try {
+				Class<?> indexClass = Thread.currentThread().getContextClassLoader().loadClass(indexClassName);
+				index.putAll(((ObjectClassIndex)indexClass.newInstance()).getEntityClasses());
+			} catch (ClassNotFoundException e) {
+				if ( log.isDebugEnabled() ) {
+					log.debug("No " + indexClassName + " found, indexing the preloaded context mappers instead.");
+				}
+				preload();
+			} catch (Exception e) {
+				throw new RuntimeException("Unable to instantiate object class index: " + indexClassName, e);
+			}
+		}
+		//The generated index wins over the mappers of the same object class.
+		for ( Class<?> ldapEntityClass : contextMappers.keySet() ) {
+			@SuppressWarnings("unchecked")
+			Class<? extends LdapEntity> entityClass = (Class<? extends LdapEntity>)ldapEntityClass;
+			String objectClass = createLdapEntity(entityClass).getObjectClass().toLowerCase();
+			if ( !index.containsKey(objectClass) ) {
+				index.put(objectClass, entityClass);
+			}
+		}
+		
+		objectClassIndex = index;
+		return index;
+	}
+	
+	private synchronized void resetObjectClassIndex() {
+		objectClassIndex = null;
+		entityClassesByObjectClasses.clear();
+	}
+	
+	private String getObjectClassesKey(String[] objectClasses) {
+		String[] key = new String[objectClasses.length];
+		for ( int i = 0; i < objectClasses.length; i++ ) {
+			key[i] = objectClasses[i] == null ? "" : objectClasses[i].toLowerCase();
+		}
+		Arrays.sort(key);
+		return Arrays.toString(key);
+	}
+	
+	private LdapEntity createLdapEntity(Class<? extends LdapEntity> ldapEntityClass) {
+		try {
+			return ldapEntityClass.newInstance();
+		} catch (Exception e) {
+			throw new RuntimeException("Unable to instantiate LDAP Entity class: " + ldapEntityClass.getName(), e);
+		}
+	}
+
+	private LdapContextMapper createLdapContextMapper(Class<? extends LdapEntity> ldapEntityClass) {
+		String mapperClassName = contextMappersPackage + "." + ldapEntityClass.getSimpleName() + MAPPERS_SUFFIX;
+		try {
+			Class<?> mapperClass = Thread.currentThread().getContextClassLoader().loadClass(mapperClassName);
+			return (LdapContextMapper)mapperClass.newInstance();
+		} catch (ClassNotFoundException e) {
+			//Should not happen.
+			throw new RuntimeException("Unable to find context mapper class: " + mapperClassName);
+		} catch (Exception e) {
+			//Should not happen.
+			throw new RuntimeException("Unable to instantiate context mapper class: " + mapperClassName);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.SearchResult;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.ldap.support.LdapUtils;
+
+/**
+ * Iterates over the results of a search one LDAP Entity at a time. The underlying
+ * {@code DirContext} stays open until the iterator is exhausted or {@link #close()}
+ * is called, so always close it in a finally block:
+ * 
+ * <pre>
+ * LdapEntityIterator iterator = jolmLdapTemplate.iterate(base, filter, null, Person.class);
+ * try {
+ *    while ( iterator.hasNext() ) {
+ *       Person person = (Person)iterator.next();
+ *       ...
+ *    }
+ * } finally {
+ *    iterator.close();
+ * }
+ * </pre>
+ * 
+ * Entries that the mapper doesn't recognize are skipped.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public class LdapEntityIterator implements Iterator<LdapEntity>, Closeable {
+	private final static Log log = LogFactory.getLog(LdapEntityIterator.class);
+	
+	private final DirContext context;
+	private final NamingEnumeration<SearchResult> results;
+	private final LdapContextMapper contextMapper;
+	private LdapEntity nextEntity;
+	private boolean closed;
+	
+	LdapEntityIterator(DirContext context, NamingEnumeration<SearchResult> results, LdapContextMapper contextMapper) {
+		this.context = context;
+		this.results = results;
+		this.contextMapper = contextMapper;
+	}
+
+	public boolean hasNext() {
+		while ( nextEntity == null && !closed ) {
+			try {
+				if ( !results.hasMore() ) {
+					close();
+					break;
+				}
+				nextEntity = (LdapEntity)contextMapper.mapFromContext(results.next().getObject());
+			} catch (NamingException e) {
+				close();
+				throw LdapUtils.convertLdapException(e);
+			}
+		}
+		return nextEntity != null;
+	}
+
+	public LdapEntity next() {
+		if ( !hasNext() ) {
+			throw new NoSuchElementException();
+		}
+		LdapEntity result = nextEntity;
+		nextEntity = null;
+		return result;
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException("remove is not supported by LdapEntityIterator.");
+	}
+	
+	/**
+	 * Closes the search results and releases the {@code DirContext}. It is safe to call 
+	 * it more than once.
+	 */
+	public void close() {
+		if ( closed ) {
+			return;
+		}
+		closed = true;
+		try {
+			results.close();
+		} catch (NamingException ignoreIt) {
+			log.warn("Exception occurred while closing search results.", ignoreIt);
+		}
+		LdapUtils.closeContext(context);
+	}
+}
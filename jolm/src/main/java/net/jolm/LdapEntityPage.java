@@ -0,0 +1,65 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm;
+
+import java.util.List;
+
+/**
+ * One page of sorted search results together with the server's estimate of the total 
+ * number of entries matched by the search.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ * 
+ * @see net.jolm.JolmLdapOperations#findPage(String, String, String[], Class, String, boolean, int, int)
+ */
+public class LdapEntityPage {
+	private final List<? extends LdapEntity> entities;
+	private final int offset;
+	private final int totalCount;
+	
+	public LdapEntityPage(List<? extends LdapEntity> entities, int offset, int totalCount) {
+		this.entities = entities;
+		this.offset = offset;
+		this.totalCount = totalCount;
+	}
+
+	/**
+	 * @return The LDAP Entities in this page.
+	 */
+	public List<? extends LdapEntity> getEntities() {
+		return entities;
+	}
+
+	/**
+	 * @return The 0-based position of the first entity of this page in the sorted results.
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return The estimated total number of entries matched by the search, or -1 if the
+	 * 		server didn't return the estimate.
+	 */
+	public int getTotalCount() {
+		return totalCount;
+	}
+	
+	public String toString() {
+		return "LdapEntityPage[offset=" + offset + ", size=" + entities.size() + ", totalCount=" + totalCount + "]";
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes the properties of an LDAP Entity class that take part in query-by-example
+ * filters. The bean introspection is done once per class by
+ * {@link LdapContextMapperRegistry}, which keeps the result next to the mapper, so the hot
+ * path only invokes the accessor methods and no static cache pins the entity classes.
+ *
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public final class LdapEntityProperties {
+	private static final List<String> reservedAttributeNames =
+		Arrays.asList("class", "objectClass", "objectClasses", "childObjectClasses", "dn", "rdn", "parentDn");
+
+	private final List<Property> filterableProperties;
+
+	/**
+	 * Introspects the properties of an LDAP Entity class. The result is not cached, use
+	 * {@link LdapContextMapperRegistry#getLdapEntityProperties(Class)} on the hot path.
+	 *
+	 * @param entityClass The LDAP Entity class.
+	 * @return The {@code LdapEntityProperties} of the class.
+	 */
+	public static LdapEntityProperties forClass(Class<?> entityClass) {
+		return new LdapEntityProperties(entityClass);
+	}
+
+	/**
+	 * Returns true if the field name is reserved by {@code LdapEntity} rather than
+	 * mapped from an LDAP attribute.
+	 */
+	public static boolean isReservedField(String fieldName) {
+		return reservedAttributeNames.contains(fieldName);
+	}
+
+	private LdapEntityProperties(Class<?> entityClass) {
+		BeanInfo beanInfo;
+		try {
+			beanInfo = Introspector.getBeanInfo(entityClass);
+		} catch (IntrospectionException e) {
+			throw new RuntimeException("Unable to introspect ldap entity class: " + entityClass.getName(), e);
+		}
+
+		List<Property> filterable = new ArrayList<Property>();
+		for ( PropertyDescriptor pd : beanInfo.getPropertyDescriptors() ) {
+			if ( isReservedField(pd.getName()) ) {
+				continue;
+			}
+			if ( pd.getReadMethod() != null &&
+					(pd.getPropertyType() == String.class || pd.getPropertyType() == String[].class) ) {
+				filterable.add(new Property(pd));
+			}
+		}
+		this.filterableProperties = Collections.unmodifiableList(filterable);
+	}
+
+	/**
+	 * @return The readable {@code String} and {@code String[]} properties, which are
+	 * 		used to build filters from an example entity.
+	 */
+	public List<Property> getFilterableProperties() {
+		return filterableProperties;
+	}
+
+	/**
+	 * A single property of an LDAP Entity with its read method resolved.
+	 */
+	public static final class Property {
+		private final String name;
+		private final boolean multiValues;
+		private final Method readMethod;
+
+		private Property(PropertyDescriptor pd) {
+			this.name = pd.getName();
+			this.multiValues = pd.getPropertyType() != null && pd.getPropertyType().isArray();
+			this.readMethod = accessible(pd.getReadMethod());
+		}
+
+		private static Method accessible(Method method) {
+			if ( method != null ) {
+				try {
+					method.setAccessible(true);
+				} catch (SecurityException ignoreIt) {
+					//Falls back to the access check on every invocation.
+				}
+			}
+			return method;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public boolean isMultiValues() {
+			return multiValues;
+		}
+
+		public Object getValue(Object entity) {
+			try {
+				return readMethod.invoke(entity);
+			} catch (Exception e) {
+				throw new RuntimeException("Unable to read property '" + name + "' of ldap entity:" + entity, e);
+			}
+		}
+	}
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm;
+
+import java.util.Map;
+
+/**
+ * Index of the LDAP Entity classes by their object class, used to pick the right 
+ * {@code LdapContextMapper} for entries of different object classes returned by one 
+ * search. maven-jolm-plugin generates an implementation named 
+ * {@value #GENERATED_CLASS_NAME} into the mappers package.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public interface ObjectClassIndex {
+	/**
+	 * The simple name of the generated implementation.
+	 */
+	public static final String GENERATED_CLASS_NAME = "GeneratedObjectClassIndex";
+	
+	/**
+	 * @return LDAP Entity classes keyed by the lower-cased name of their object class.
+	 */
+	public Map<String, Class<? extends LdapEntity>> getEntityClasses();
+}
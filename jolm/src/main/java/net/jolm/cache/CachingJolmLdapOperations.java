@@ -0,0 +1,382 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.naming.directory.SearchControls;
+
+import net.jolm.JolmLdapOperations;
+import net.jolm.JolmLdapTemplate;
+import net.jolm.LdapBatchProgressHandler;
+import net.jolm.LdapBatchResult;
+import net.jolm.LdapEntity;
+import net.jolm.LdapEntityCallbackHandler;
+import net.jolm.LdapEntityIterator;
+import net.jolm.LdapEntityPage;
+import net.jolm.cache.LdapQueryCache.QueryKey;
+
+import org.springframework.ldap.core.DistinguishedName;
+import org.springframework.ldap.core.LdapRdn;
+
+/**
+ * Decorates a {@code JolmLdapOperations} with a read-through {@code LdapEntityCache} for
+ * {@link #get(String, Class)}. The cached entries are invalidated by {@code create}, 
+ * {@code modify}, {@code delete}, {@code deleteRecursively} and {@code deleteSubtree} done 
+ * through this instance, changes made by other clients are only seen after the entries expire.
+ * 
+ * <p>Search results of {@code find}, {@code findByExample(s)} and {@code listChildren} are 
+ * cached as well when a {@code LdapQueryCache} is set. The searches by example are only 
+ * cached when the decorated operations is a {@code JolmLdapTemplate}, which builds the
+ * filter the results are keyed on. Paged, sorted and streaming searches are never cached.</p>
+ * 
+ * <p>Both caches hand out copies of the LDAP Entities, so every caller can modify the ones
+ * it gets without changing what the other callers get.</p>
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public class CachingJolmLdapOperations implements JolmLdapOperations {
+	private final JolmLdapOperations jolmLdapOperations;
+	private final LdapEntityCache cache;
+	private LdapQueryCache queryCache;
+	
+	public CachingJolmLdapOperations(JolmLdapOperations jolmLdapOperations) {
+		this(jolmLdapOperations, new LdapEntityCache());
+	}
+	
+	public CachingJolmLdapOperations(JolmLdapOperations jolmLdapOperations, LdapEntityCache cache) {
+		if ( jolmLdapOperations == null || cache == null ) {
+			throw new IllegalArgumentException("Both JolmLdapOperations and LdapEntityCache are required.");
+		}
+		this.jolmLdapOperations = jolmLdapOperations;
+		this.cache = cache;
+	}
+	
+	public LdapEntity get(String dn, Class<? extends LdapEntity> entityClass) {
+		LdapEntity entity = cache.get(dn, entityClass);
+		if ( entity == null ) {
+			long generation = cache.getGeneration();
+			entity = jolmLdapOperations.get(dn, entityClass);
+			cache.put(dn, entityClass, entity, generation);
+		}
+		return entity;
+	}
+	
+	public Map<String, LdapEntity> getAll(Collection<String> dns, Class<? extends LdapEntity> entityClass) {
+		Map<String, LdapEntity> entities = new LinkedHashMap<String, LdapEntity>();
+		List<String> missedDns = new ArrayList<String>();
+		for ( String dn : dns ) {
+			LdapEntity entity = cache.get(dn, entityClass);
+			if ( entity == null ) {
+				missedDns.add(dn);
+			} else {
+				entities.put(dn, entity);
+			}
+		}
+		if ( !missedDns.isEmpty() ) {
+			long generation = cache.getGeneration();
+			Map<String, LdapEntity> loaded = jolmLdapOperations.getAll(missedDns, entityClass);
+			for ( Map.Entry<String, LdapEntity> entry : loaded.entrySet() ) {
+				cache.put(entry.getKey(), entityClass, entry.getValue(), generation);
+			}
+			if ( entities.isEmpty() ) {
+				return loaded;
+			}
+			//Keeps the order of the DNs as passed in.
+			Map<String, LdapEntity> merged = new LinkedHashMap<String, LdapEntity>();
+			for ( String dn : dns ) {
+				LdapEntity entity = entities.containsKey(dn) ? entities.get(dn) : loaded.get(dn);
+				if ( entity != null ) {
+					merged.put(dn, entity);
+				}
+			}
+			entities = merged;
+		}
+		return entities;
+	}
+	
+	public LdapEntity create(String parentDn, LdapEntity entity) {
+		try {
+			return jolmLdapOperations.create(parentDn, entity);
+		} finally {
+			invalidate(getDn(parentDn, entity), false);
+		}
+	}
+
+	public void modify(String parentDn, LdapEntity entity) {
+		try {
+			jolmLdapOperations.modify(parentDn, entity);
+		} finally {
+			invalidate(getDn(parentDn, entity), false);
+		}
+	}
+
+	public void modify(LdapEntity entity) {
+		try {
+			jolmLdapOperations.modify(entity);
+		} finally {
+			if ( entity.getDn() != null ) {
+				invalidate(entity.getDn(), false);
+			}
+		}
+	}
+
+	public void modifyChanges(LdapEntity original, LdapEntity entity) {
+		try {
+			jolmLdapOperations.modifyChanges(original, entity);
+		} finally {
+			if ( entity.getDn() != null ) {
+				invalidate(entity.getDn(), false);
+			}
+		}
+	}
+
+	public void delete(String dn) {
+		try {
+			jolmLdapOperations.delete(dn);
+		} finally {
+			invalidate(dn, false);
+		}
+	}
+
+	public void deleteRecursively(String dn) {
+		try {
+			jolmLdapOperations.deleteRecursively(dn);
+		} finally {
+			invalidate(dn, true);
+		}
+	}
+
+	public LdapBatchResult deleteSubtree(String dn, LdapBatchProgressHandler progressHandler) {
+		try {
+			return jolmLdapOperations.deleteSubtree(dn, progressHandler);
+		} finally {
+			invalidate(dn, true);
+		}
+	}
+
+	public LdapBatchResult createAll(List<? extends LdapEntity> entities) {
+		try {
+			return jolmLdapOperations.createAll(entities);
+		} finally {
+			for ( LdapEntity entity : entities ) {
+				if ( entity.getDn() != null ) {
+					invalidate(entity.getDn(), false);
+				}
+			}
+		}
+	}
+
+	public LdapBatchResult modifyAll(List<? extends LdapEntity> entities) {
+		try {
+			return jolmLdapOperations.modifyAll(entities);
+		} finally {
+			for ( LdapEntity entity : entities ) {
+				if ( entity.getDn() != null ) {
+					invalidate(entity.getDn(), false);
+				}
+			}
+		}
+	}
+
+	public LdapBatchResult deleteAll(List<String> dns) {
+		try {
+			return jolmLdapOperations.deleteAll(dns);
+		} finally {
+			for ( String dn : dns ) {
+				invalidate(dn, false);
+			}
+		}
+	}
+
+	public List<? extends LdapEntity> find(String base, String filter, Class<? extends LdapEntity> entityClass) {
+		return find(base, filter, null, entityClass);
+	}
+
+	public List<? extends LdapEntity> find(final String base, final String filter, final String[] attributes, final Class<? extends LdapEntity> entityClass) {
+		return cachedSearch(base, SearchControls.SUBTREE_SCOPE, filter, attributes, entityClass, new Search() {
+			public List<? extends LdapEntity> search() {
+				return jolmLdapOperations.find(base, filter, attributes, entityClass);
+			}
+		});
+	}
+
+	public List<? extends LdapEntity> find(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, int pageSize) {
+		return jolmLdapOperations.find(base, filter, attributes, entityClass, pageSize);
+	}
+
+	public List<? extends LdapEntity> findSorted(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, 
+			String sortKey, boolean ascending) {
+		return jolmLdapOperations.findSorted(base, filter, attributes, entityClass, sortKey, ascending);
+	}
+
+	public LdapEntityPage findPage(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, 
+			String sortKey, boolean ascending, int offset, int count) {
+		return jolmLdapOperations.findPage(base, filter, attributes, entityClass, sortKey, ascending, offset, count);
+	}
+
+	public List<? extends LdapEntity> findByExample(String base, LdapEntity example) {
+		return findByExample(base, example, null);
+	}
+
+	public List<? extends LdapEntity> findByExample(final String base, final LdapEntity example, final String[] attributes) {
+		if ( queryCache == null || !(jolmLdapOperations instanceof JolmLdapTemplate) ) {
+			return jolmLdapOperations.findByExample(base, example, attributes);
+		}
+		String filter = ((JolmLdapTemplate)jolmLdapOperations).getExampleFilter(example, false).encode();
+		return cachedSearch(base, SearchControls.SUBTREE_SCOPE, filter, attributes, example.getClass(), new Search() {
+			public List<? extends LdapEntity> search() {
+				return jolmLdapOperations.findByExample(base, example, attributes);
+			}
+		});
+	}
+
+	public List<? extends LdapEntity> findByExamples(String base, LdapEntity[] examples) {
+		return findByExamples(base, examples, null);
+	}
+
+	public List<? extends LdapEntity> findByExamples(final String base, final LdapEntity[] examples, final String[] attributes) {
+		if ( queryCache == null || !(jolmLdapOperations instanceof JolmLdapTemplate) || examples == null || examples.length == 0 ) {
+			return jolmLdapOperations.findByExamples(base, examples, attributes);
+		}
+		//Keyed by the filters of the examples one after another rather than by their OrFilter,
+		//which findByExamples splits into chunks when there are many examples.
+		StringBuilder filters = new StringBuilder();
+		for ( LdapEntity example : examples ) {
+			filters.append(((JolmLdapTemplate)jolmLdapOperations).getExampleFilter(example, false).encode());
+		}
+		return cachedSearch(base, SearchControls.SUBTREE_SCOPE, filters.toString(), attributes, examples[0].getClass(), new Search() {
+			public List<? extends LdapEntity> search() {
+				return jolmLdapOperations.findByExamples(base, examples, attributes);
+			}
+		});
+	}
+
+	public void forEach(String base, String filter, Class<? extends LdapEntity> entityClass, LdapEntityCallbackHandler callbackHandler) {
+		jolmLdapOperations.forEach(base, filter, entityClass, callbackHandler);
+	}
+
+	public void forEach(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, LdapEntityCallbackHandler callbackHandler) {
+		jolmLdapOperations.forEach(base, filter, attributes, entityClass, callbackHandler);
+	}
+
+	public void forEach(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass, LdapEntityCallbackHandler callbackHandler, int pageSize) {
+		jolmLdapOperations.forEach(base, filter, attributes, entityClass, callbackHandler, pageSize);
+	}
+
+	public LdapEntityIterator iterate(String base, String filter, String[] attributes, Class<? extends LdapEntity> entityClass) {
+		return jolmLdapOperations.iterate(base, filter, attributes, entityClass);
+	}
+
+	public List<? extends LdapEntity> findPolymorphic(final String base, final String filter) {
+		return cachedSearch(base, SearchControls.SUBTREE_SCOPE, filter, null, LdapEntity.class, new Search() {
+			public List<? extends LdapEntity> search() {
+				return jolmLdapOperations.findPolymorphic(base, filter);
+			}
+		});
+	}
+	
+	public List<? extends LdapEntity> findPolymorphic(final String base, final String filter, final String[] attributes) {
+		return cachedSearch(base, SearchControls.SUBTREE_SCOPE, filter, attributes, LdapEntity.class, new Search() {
+			public List<? extends LdapEntity> search() {
+				return jolmLdapOperations.findPolymorphic(base, filter, attributes);
+			}
+		});
+	}
+	
+	public List<? extends LdapEntity> listChildren(final String baseDn, final Class<? extends LdapEntity> childEntityClass) {
+		return cachedSearch(baseDn, SearchControls.ONELEVEL_SCOPE, null, null, childEntityClass, new Search() {
+			public List<? extends LdapEntity> search() {
+				return jolmLdapOperations.listChildren(baseDn, childEntityClass);
+			}
+		});
+	}
+
+	public List<? extends LdapEntity> listChildren(final String baseDn, final Class<? extends LdapEntity> childEntityClass, final String[] attributes) {
+		return cachedSearch(baseDn, SearchControls.ONELEVEL_SCOPE, null, attributes, childEntityClass, new Search() {
+			public List<? extends LdapEntity> search() {
+				return jolmLdapOperations.listChildren(baseDn, childEntityClass, attributes);
+			}
+		});
+	}
+	
+	/**
+	 * Not cached, the loaded entities are linked to each other through their child arrays.
+	 */
+	public LdapEntity loadTree(String dn, Class<? extends LdapEntity> entityClass, int depth) {
+		return jolmLdapOperations.loadTree(dn, entityClass, depth);
+	}
+	
+	public JolmLdapOperations getJolmLdapOperations() {
+		return jolmLdapOperations;
+	}
+
+	public LdapEntityCache getCache() {
+		return cache;
+	}
+
+	public LdapQueryCache getQueryCache() {
+		return queryCache;
+	}
+
+	/**
+	 * Sets the cache of search results. Search results are not cached when it is null, 
+	 * which is the default.
+	 */
+	public void setQueryCache(LdapQueryCache queryCache) {
+		this.queryCache = queryCache;
+	}
+	
+	private List<? extends LdapEntity> cachedSearch(String base, int scope, String filter, String[] attributes, 
+			Class<? extends LdapEntity> entityClass, Search search) {
+		if ( queryCache == null ) {
+			return search.search();
+		}
+		QueryKey key = new QueryKey(base, scope, filter == null ? "" : filter, attributes, entityClass);
+		List<? extends LdapEntity> entities = queryCache.get(key);
+		if ( entities == null ) {
+			long generation = queryCache.getGeneration();
+			entities = queryCache.put(key, search.search(), generation);
+		}
+		return entities;
+	}
+	
+	private void invalidate(String dn, boolean subtree) {
+		if ( subtree ) {
+			cache.invalidateSubtree(dn);
+		} else {
+			cache.invalidate(dn);
+		}
+		if ( queryCache != null ) {
+			queryCache.invalidate(dn, subtree);
+		}
+	}
+	
+	private String getDn(String parentDn, LdapEntity entity) {
+		DistinguishedName dn = new DistinguishedName(parentDn);
+		dn.add(new LdapRdn(entity.getRdn()));
+		return dn.toString();
+	}
+	
+	private interface Search {
+		List<? extends LdapEntity> search();
+	}
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.cache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jolm.LdapEntity;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.springframework.ldap.core.DistinguishedName;
+
+/**
+ * Size-bounded, time-to-live cache of LDAP Entities keyed by normalized DN and the LDAP 
+ * Entity class they were loaded as, so the same entry read as different classes is cached
+ * once per class. When the cache is full, the least recently used entry is evicted. 
+ * Invalidating a DN removes it for all the classes.
+ * 
+ * <p>The LDAP Entities are copied by serialization when they are put and on every hit, so
+ * a caller modifying its instance never changes what the cache, or any other caller, sees.</p>
+ * 
+ * <p>Each invalidation bumps a generation counter. Loaders read the generation before 
+ * going to the LDAP server and pass it back to {@link #put(String, Class, LdapEntity, long)}, so
+ * an entity loaded concurrently with a write is not put back into the cache.</p>
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public class LdapEntityCache {
+	public static final long DEFAULT_TIME_TO_LIVE_IN_MS = 60000;
+	public static final int DEFAULT_MAX_SIZE = 1000;
+	
+	private final Map<CacheKey, CacheEntry> entries = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+			if ( size() > maxSize ) {
+				removeFromIndex(eldest.getKey());
+				return true;
+			}
+			return false;
+		}
+	};
+	//The classes each normalized DN is cached as, for the invalidation of a DN.
+	private final Map<String, Set<Class<? extends LdapEntity>>> entityClassesByDn = new HashMap<String, Set<Class<? extends LdapEntity>>>();
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private long timeToLiveInMs = DEFAULT_TIME_TO_LIVE_IN_MS;
+	private int maxSize = DEFAULT_MAX_SIZE;
+	private long generation;
+	
+	public LdapEntityCache() {
+	}
+	
+	public LdapEntityCache(long timeToLiveInMs, int maxSize) {
+		setTimeToLiveInMs(timeToLiveInMs);
+		setMaxSize(maxSize);
+	}
+	
+	/**
+	 * Returns a copy of the cached LDAP Entity.
+	 * 
+	 * @param dn The DN of the LDAP Entity.
+	 * @param entityClass The LDAP Entity Class the entity was loaded as.
+	 * @return The cached LDAP Entity, or null if it is not cached as the class or has expired.
+	 */
+	public synchronized LdapEntity get(String dn, Class<? extends LdapEntity> entityClass) {
+		CacheKey key = new CacheKey(normalize(dn), entityClass);
+		CacheEntry entry = entries.get(key);
+		if ( entry == null ) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		if ( entry.isExpired(System.currentTimeMillis()) ) {
+			entries.remove(key);
+			removeFromIndex(key);
+			missCount.incrementAndGet();
+			return null;
+		}
+		hitCount.incrementAndGet();
+		return (LdapEntity)SerializationUtils.clone(entry.entity);
+	}
+	
+	/**
+	 * @return The current generation, to be passed to {@link #put(String, Class, LdapEntity, long)}
+	 * 		after the LDAP Entity is loaded.
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+	
+	/**
+	 * Caches a copy of the LDAP Entity unless the cache has been invalidated since 
+	 * {@code generation}.
+	 * 
+	 * @param dn The DN of the LDAP Entity.
+	 * @param entityClass The LDAP Entity Class the entity was loaded as.
+	 * @param entity The LDAP Entity.
+	 * @param generation The generation read before the LDAP Entity was loaded.
+	 */
+	public synchronized void put(String dn, Class<? extends LdapEntity> entityClass, LdapEntity entity, long generation) {
+		if ( entity == null || generation != this.generation ) {
+			return;
+		}
+		DistinguishedName distinguishedName = new DistinguishedName(dn);
+		CacheKey key = new CacheKey(normalize(distinguishedName), entityClass);
+		entries.put(key, new CacheEntry(distinguishedName, (LdapEntity)SerializationUtils.clone(entity), System.currentTimeMillis() + timeToLiveInMs));
+		Set<Class<? extends LdapEntity>> entityClasses = entityClassesByDn.get(key.dn);
+		if ( entityClasses == null ) {
+			entityClasses = new HashSet<Class<? extends LdapEntity>>();
+			entityClassesByDn.put(key.dn, entityClasses);
+		}
+		entityClasses.add(entityClass);
+	}
+	
+	/**
+	 * Removes the LDAP Entity from the cache, whatever classes it was loaded as.
+	 * 
+	 * @param dn The DN of the LDAP Entity.
+	 */
+	public synchronized void invalidate(String dn) {
+		generation++;
+		String normalizedDn = normalize(dn);
+		Set<Class<? extends LdapEntity>> entityClasses = entityClassesByDn.remove(normalizedDn);
+		if ( entityClasses != null ) {
+			for ( Class<? extends LdapEntity> entityClass : entityClasses ) {
+				entries.remove(new CacheKey(normalizedDn, entityClass));
+			}
+		}
+	}
+	
+	/**
+	 * Removes the LDAP Entity and all its descendants from the cache.
+	 * 
+	 * @param dn The DN of the root of the subtree.
+	 */
+	public synchronized void invalidateSubtree(String dn) {
+		generation++;
+		DistinguishedName base = new DistinguishedName(dn);
+		for ( Iterator<Map.Entry<CacheKey, CacheEntry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+			Map.Entry<CacheKey, CacheEntry> entry = it.next();
+			if ( entry.getValue().dn.startsWith(base) ) {
+				it.remove();
+				removeFromIndex(entry.getKey());
+			}
+		}
+	}
+	
+	/**
+	 * Removes all the cached LDAP Entities and resets the counters.
+	 */
+	public synchronized void clear() {
+		generation++;
+		entries.clear();
+		entityClassesByDn.clear();
+		hitCount.set(0);
+		missCount.set(0);
+	}
+	
+	/**
+	 * @return Number of LDAP Entities currently cached, counting an entry once per class it
+	 * 		is cached as, and including the expired ones not 
+	 * 		evicted yet.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+	
+	/**
+	 * @return Number of lookups served from the cache.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+	
+	/**
+	 * @return Number of lookups not served from the cache.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public long getTimeToLiveInMs() {
+		return timeToLiveInMs;
+	}
+
+	public void setTimeToLiveInMs(long timeToLiveInMs) {
+		if ( timeToLiveInMs <= 0 ) {
+			throw new IllegalArgumentException("timeToLiveInMs must be positive: " + timeToLiveInMs);
+		}
+		this.timeToLiveInMs = timeToLiveInMs;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public synchronized void setMaxSize(int maxSize) {
+		if ( maxSize <= 0 ) {
+			throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+		}
+		this.maxSize = maxSize;
+	}
+	
+	private void removeFromIndex(CacheKey key) {
+		Set<Class<? extends LdapEntity>> entityClasses = entityClassesByDn.get(key.dn);
+		if ( entityClasses != null && entityClasses.remove(key.entityClass) && entityClasses.isEmpty() ) {
+			entityClassesByDn.remove(key.dn);
+		}
+	}
+	
+	private static String normalize(String dn) {
+		return normalize(new DistinguishedName(dn));
+	}
+	
+	/**
+	 * {@code DistinguishedName.equals} ignores case but its {@code hashCode} doesn't, so 
+	 * the lower-cased string form is used as the key instead.
+	 */
+	private static String normalize(DistinguishedName dn) {
+		return dn.toString().toLowerCase();
+	}
+	
+	/**
+	 * Identifies a cached LDAP Entity by normalized DN and LDAP Entity class.
+	 */
+	private static final class CacheKey {
+		private final String dn;
+		private final Class<? extends LdapEntity> entityClass;
+		
+		public CacheKey(String dn, Class<? extends LdapEntity> entityClass) {
+			this.dn = dn;
+			this.entityClass = entityClass;
+		}
+		
+		public boolean equals(Object obj) {
+			if ( this == obj ) {
+				return true;
+			}
+			if ( !(obj instanceof CacheKey) ) {
+				return false;
+			}
+			CacheKey other = (CacheKey)obj;
+			return entityClass == other.entityClass && dn.equals(other.dn);
+		}
+		
+		public int hashCode() {
+			return 31 * dn.hashCode() + entityClass.hashCode();
+		}
+	}
+	
+	private static class CacheEntry {
+		private final DistinguishedName dn;
+		private final LdapEntity entity;
+		private final long expiresAt;
+		
+		public CacheEntry(DistinguishedName dn, LdapEntity entity, long expiresAt) {
+			this.dn = dn;
+			this.entity = entity;
+			this.expiresAt = expiresAt;
+		}
+		
+		public boolean isExpired(long now) {
+			return now >= expiresAt;
+		}
+	}
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jolm.LdapEntity;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.springframework.ldap.core.DistinguishedName;
+
+/**
+ * Size-bounded, time-to-live cache of search results keyed by base, scope, encoded filter, 
+ * returning attributes and LDAP Entity class. When the cache is full, the least recently 
+ * used result is evicted.
+ * 
+ * <p>A write to a DN invalidates the results of the searches whose base is the DN or one
+ * of its ancestors. Like {@link LdapEntityCache}, a generation counter keeps results loaded
+ * concurrently with a write from being cached. The LDAP Entities are copied when they are
+ * put and on every hit, as they are by {@code LdapEntityCache}.</p>
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public class LdapQueryCache {
+	public static final long DEFAULT_TIME_TO_LIVE_IN_MS = 60000;
+	public static final int DEFAULT_MAX_SIZE = 200;
+	
+	private final Map<QueryKey, CacheEntry> entries = new LinkedHashMap<QueryKey, CacheEntry>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry<QueryKey, CacheEntry> eldest) {
+			return size() > maxSize;
+		}
+	};
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private long timeToLiveInMs = DEFAULT_TIME_TO_LIVE_IN_MS;
+	private int maxSize = DEFAULT_MAX_SIZE;
+	private long generation;
+	
+	public LdapQueryCache() {
+	}
+	
+	public LdapQueryCache(long timeToLiveInMs, int maxSize) {
+		setTimeToLiveInMs(timeToLiveInMs);
+		setMaxSize(maxSize);
+	}
+	
+	/**
+	 * Returns a copy of the cached search results.
+	 * 
+	 * @param key The search.
+	 * @return The unmodifiable list of copies of the LDAP Entities, or null if the search is not cached 
+	 * 		or has expired.
+	 */
+	public synchronized List<? extends LdapEntity> get(QueryKey key) {
+		CacheEntry entry = entries.get(key);
+		if ( entry == null ) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		if ( entry.isExpired(System.currentTimeMillis()) ) {
+			entries.remove(key);
+			missCount.incrementAndGet();
+			return null;
+		}
+		hitCount.incrementAndGet();
+		return copy(entry.entities);
+	}
+	
+	/**
+	 * @return The current generation, to be passed to {@link #put(QueryKey, List, long)}
+	 * 		after the search is done.
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+	
+	/**
+	 * Caches a copy of the search results unless the cache has been invalidated since {@code generation}.
+	 * 
+	 * @param key The search.
+	 * @param entities The LDAP Entities found.
+	 * @param generation The generation read before the search was done.
+	 * @return The unmodifiable list of the LDAP Entities found, not the copies that are cached.
+	 */
+	public synchronized List<? extends LdapEntity> put(QueryKey key, List<? extends LdapEntity> entities, long generation) {
+		if ( generation == this.generation ) {
+			entries.put(key, new CacheEntry(copy(entities), System.currentTimeMillis() + timeToLiveInMs));
+		}
+		return Collections.unmodifiableList(entities);
+	}
+	
+	/**
+	 * Removes the search results that could contain the LDAP Entity.
+	 * 
+	 * @param dn The DN of the LDAP Entity that has been written.
+	 * @param subtree Whether the descendants of the DN have been written as well, in 
+	 * 		which case the searches based within the subtree are removed too.
+	 */
+	public synchronized void invalidate(String dn, boolean subtree) {
+		generation++;
+		DistinguishedName distinguishedName = new DistinguishedName(dn);
+		for ( Iterator<QueryKey> it = entries.keySet().iterator(); it.hasNext(); ) {
+			DistinguishedName base = it.next().base;
+			if ( distinguishedName.startsWith(base) || (subtree && base.startsWith(distinguishedName)) ) {
+				it.remove();
+			}
+		}
+	}
+	
+	/**
+	 * Removes all the cached search results and resets the counters.
+	 */
+	public synchronized void clear() {
+		generation++;
+		entries.clear();
+		hitCount.set(0);
+		missCount.set(0);
+	}
+	
+	/**
+	 * @return Number of search results currently cached, including the expired ones not 
+	 * 		evicted yet.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+	
+	/**
+	 * @return Number of searches served from the cache.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+	
+	/**
+	 * @return Number of searches not served from the cache.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+	
+	/**
+	 * @return The ratio of searches served from the cache, or 0 if there has been none.
+	 */
+	public double getHitRate() {
+		long hits = hitCount.get();
+		long total = hits + missCount.get();
+		return total == 0 ? 0 : (double)hits / total;
+	}
+
+	public long getTimeToLiveInMs() {
+		return timeToLiveInMs;
+	}
+
+	public void setTimeToLiveInMs(long timeToLiveInMs) {
+		if ( timeToLiveInMs <= 0 ) {
+			throw new IllegalArgumentException("timeToLiveInMs must be positive: " + timeToLiveInMs);
+		}
+		this.timeToLiveInMs = timeToLiveInMs;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public synchronized void setMaxSize(int maxSize) {
+		if ( maxSize <= 0 ) {
+			throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+		}
+		this.maxSize = maxSize;
+	}
+	
+	private static List<? extends LdapEntity> copy(List<? extends LdapEntity> entities) {
+		List<LdapEntity> copies = new ArrayList<LdapEntity>(entities.size());
+		for ( LdapEntity entity : entities ) {
+			copies.add((LdapEntity)SerializationUtils.clone(entity));
+		}
+		return Collections.unmodifiableList(copies);
+	}
+	
+	/**
+	 * Identifies a search by base, scope, encoded filter, returning attributes and LDAP 
+	 * Entity class.
+	 */
+	public static final class QueryKey {
+		private final DistinguishedName base;
+		private final String normalizedBase;
+		private final int scope;
+		private final String filter;
+		private final List<String> attributes;
+		private final Class<? extends LdapEntity> entityClass;
+		private final int hashCode;
+		
+		public QueryKey(String base, int scope, String filter, String[] attributes, Class<? extends LdapEntity> entityClass) {
+			this.base = new DistinguishedName(base);
+			this.normalizedBase = this.base.toString().toLowerCase();
+			this.scope = scope;
+			this.filter = filter;
+			this.attributes = attributes == null ? null : Arrays.asList(attributes.clone());
+			this.entityClass = entityClass;
+			int h = normalizedBase.hashCode();
+			h = 31 * h + scope;
+			h = 31 * h + filter.hashCode();
+			h = 31 * h + (this.attributes == null ? 0 : this.attributes.hashCode());
+			h = 31 * h + entityClass.hashCode();
+			this.hashCode = h;
+		}
+		
+		public boolean equals(Object obj) {
+			if ( this == obj ) {
+				return true;
+			}
+			if ( !(obj instanceof QueryKey) ) {
+				return false;
+			}
+			QueryKey other = (QueryKey)obj;
+			return hashCode == other.hashCode && scope == other.scope && entityClass == other.entityClass 
+				&& normalizedBase.equals(other.normalizedBase) && filter.equals(other.filter)
+				&& (attributes == null ? other.attributes == null : attributes.equals(other.attributes));
+		}
+		
+		public int hashCode() {
+			return hashCode;
+		}
+		
+		public String toString() {
+			return "QueryKey[base=" + normalizedBase + ", scope=" + scope + ", filter=" + filter 
+				+ ", attributes=" + attributes + ", entityClass=" + entityClass.getName() + "]";
+		}
+	}
+	
+	private static class CacheEntry {
+		private final List<? extends LdapEntity> entities;
+		private final long expiresAt;
+		
+		public CacheEntry(List<? extends LdapEntity> entities, long expiresAt) {
+			this.entities = entities;
+			this.expiresAt = expiresAt;
+		}
+		
+		public boolean isExpired(long now) {
+			return now >= expiresAt;
+		}
+	}
+}
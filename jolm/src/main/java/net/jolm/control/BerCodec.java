@@ -0,0 +1,151 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.control;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Minimal BER encoding and decoding of the ASN.1 types used by LDAP control values. 
+ * Only definite lengths and values up to {@code Integer.MAX_VALUE} are supported.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+final class BerCodec {
+	static final int TAG_INTEGER = 0x02;
+	static final int TAG_OCTET_STRING = 0x04;
+	static final int TAG_ENUMERATED = 0x0A;
+	static final int TAG_SEQUENCE = 0x30;
+	
+	private final byte[] buffer;
+	private int position;
+	
+	BerCodec(byte[] buffer) {
+		this.buffer = buffer;
+	}
+	
+	static byte[] encode(int tag, byte[] content) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(content.length + 6);
+		out.write(tag);
+		int length = content.length;
+		if ( length < 0x80 ) {
+			out.write(length);
+		} else {
+			int lengthBytes = length > 0xFFFFFF ? 4 : length > 0xFFFF ? 3 : length > 0xFF ? 2 : 1;
+			out.write(0x80 | lengthBytes);
+			for ( int i = lengthBytes - 1; i >= 0; i-- ) {
+				out.write(length >>> (i * 8));
+			}
+		}
+		out.write(content, 0, content.length);
+		return out.toByteArray();
+	}
+	
+	static byte[] encodeInteger(int tag, int value) {
+		int size = 4;
+		while ( size > 1 ) {
+			int top = value >> ((size - 1) * 8 - 1);
+			if ( top != 0 && top != -1 ) {
+				break;
+			}
+			size--;
+		}
+		byte[] content = new byte[size];
+		for ( int i = 0; i < size; i++ ) {
+			content[i] = (byte)(value >>> ((size - 1 - i) * 8));
+		}
+		return encode(tag, content);
+	}
+	
+	static byte[] concat(byte[]... parts) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for ( byte[] part : parts ) {
+			if ( part != null ) {
+				out.write(part, 0, part.length);
+			}
+		}
+		return out.toByteArray();
+	}
+	
+	boolean hasMore() {
+		return position < buffer.length;
+	}
+	
+	int peekTag() {
+		return buffer[position] & 0xFF;
+	}
+	
+	/**
+	 * Reads the tag and the length of a constructed value and positions at its content.
+	 * 
+	 * @return The length of the content.
+	 */
+	int readSequence(int expectedTag) throws IOException {
+		readTag(expectedTag);
+		return readLength();
+	}
+	
+	int readInteger(int expectedTag) throws IOException {
+		readTag(expectedTag);
+		int length = readLength();
+		if ( length < 1 || length > 4 ) {
+			throw new IOException("Unsupported integer length: " + length);
+		}
+		int value = buffer[position++];
+		for ( int i = 1; i < length; i++ ) {
+			value = (value << 8) | (buffer[position++] & 0xFF);
+		}
+		return value;
+	}
+	
+	byte[] readOctetString(int expectedTag) throws IOException {
+		readTag(expectedTag);
+		int length = readLength();
+		byte[] value = new byte[length];
+		System.arraycopy(buffer, position, value, 0, length);
+		position += length;
+		return value;
+	}
+	
+	private void readTag(int expectedTag) throws IOException {
+		if ( !hasMore() ) {
+			throw new IOException("Unexpected end of BER value.");
+		}
+		int tag = buffer[position++] & 0xFF;
+		if ( tag != expectedTag ) {
+			throw new IOException("Expected BER tag " + expectedTag + " but was " + tag);
+		}
+	}
+	
+	private int readLength() throws IOException {
+		int length = buffer[position++] & 0xFF;
+		if ( (length & 0x80) != 0 ) {
+			int lengthBytes = length & 0x7F;
+			if ( lengthBytes == 0 || lengthBytes > 4 ) {
+				throw new IOException("Unsupported BER length encoding.");
+			}
+			length = 0;
+			for ( int i = 0; i < lengthBytes; i++ ) {
+				length = (length << 8) | (buffer[position++] & 0xFF);
+			}
+		}
+		if ( length < 0 || position + length > buffer.length ) {
+			throw new IOException("Invalid BER length: " + length);
+		}
+		return length;
+	}
+}
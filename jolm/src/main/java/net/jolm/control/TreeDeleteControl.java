@@ -0,0 +1,40 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.control;
+
+import javax.naming.ldap.BasicControl;
+
+/**
+ * The Tree Delete request control, which asks the server to delete an entry together with 
+ * all its descendants in one delete operation. Supported by Active Directory and some other
+ * servers, also known as the Subtree Delete control.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public class TreeDeleteControl extends BasicControl {
+	private static final long serialVersionUID = 1L;
+	
+	public static final String OID = "1.2.840.113556.1.4.805";
+	
+	/**
+	 * Creates a critical control, so that a server that doesn't support it rejects the
+	 * delete rather than failing on the children.
+	 */
+	public TreeDeleteControl() {
+		super(OID, CRITICAL, null);
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.control;
+
+import javax.naming.ldap.BasicControl;
+
+/**
+ * The Virtual List View request control (draft-ietf-ldapext-ldapv3-vlv), which asks the 
+ * server for a window of the sorted search results identified by its offset. It must be 
+ * sent together with a {@code javax.naming.ldap.SortControl}.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ * 
+ * @see net.jolm.control.VirtualListViewResponseControl
+ */
+public class VirtualListViewControl extends BasicControl {
+	private static final long serialVersionUID = 1L;
+	
+	public static final String OID = "2.16.840.1.113730.3.4.9";
+	
+	private static final int TAG_BY_OFFSET = 0xA0;
+	
+	private final int offset;
+	private final int beforeCount;
+	private final int afterCount;
+	
+	/**
+	 * Creates a critical control that requests {@code count} entries starting from 
+	 * {@code offset}.
+	 * 
+	 * @param offset The 1-based position of the first entry in the sorted results.
+	 * @param count The number of entries to return.
+	 */
+	public VirtualListViewControl(int offset, int count) {
+		this(offset, 0, count - 1, 0, null, CRITICAL);
+	}
+	
+	/**
+	 * @param offset The 1-based position of the target entry in the sorted results.
+	 * @param beforeCount The number of entries to return before the target entry.
+	 * @param afterCount The number of entries to return after the target entry.
+	 * @param contentCount The client's estimate of the result size, 0 if unknown.
+	 * @param contextId The context ID returned by the server with the previous response, or null.
+	 * @param criticality The criticality of the control.
+	 */
+	public VirtualListViewControl(int offset, int beforeCount, int afterCount, int contentCount, byte[] contextId, boolean criticality) {
+		super(OID, criticality, encodeValue(offset, beforeCount, afterCount, contentCount, contextId));
+		if ( offset < 1 || beforeCount < 0 || afterCount < 0 ) {
+			throw new IllegalArgumentException("Invalid virtual list view window: offset=" + offset + 
+					", beforeCount=" + beforeCount + ", afterCount=" + afterCount);
+		}
+		this.offset = offset;
+		this.beforeCount = beforeCount;
+		this.afterCount = afterCount;
+	}
+	
+	public int getOffset() {
+		return offset;
+	}
+
+	public int getBeforeCount() {
+		return beforeCount;
+	}
+
+	public int getAfterCount() {
+		return afterCount;
+	}
+
+	private static byte[] encodeValue(int offset, int beforeCount, int afterCount, int contentCount, byte[] contextId) {
+		byte[] byOffset = BerCodec.encode(TAG_BY_OFFSET, BerCodec.concat(
+				BerCodec.encodeInteger(BerCodec.TAG_INTEGER, offset),
+				BerCodec.encodeInteger(BerCodec.TAG_INTEGER, contentCount)));
+		return BerCodec.encode(BerCodec.TAG_SEQUENCE, BerCodec.concat(
+				BerCodec.encodeInteger(BerCodec.TAG_INTEGER, beforeCount),
+				BerCodec.encodeInteger(BerCodec.TAG_INTEGER, afterCount),
+				byOffset,
+				contextId != null ? BerCodec.encode(BerCodec.TAG_OCTET_STRING, contextId) : null));
+	}
+}
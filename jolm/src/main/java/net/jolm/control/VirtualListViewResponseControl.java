@@ -0,0 +1,101 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.control;
+
+import java.io.IOException;
+
+import javax.naming.ldap.BasicControl;
+import javax.naming.ldap.Control;
+
+/**
+ * The Virtual List View response control returned by the server, carrying the position 
+ * of the target entry and the server's estimate of the total number of entries.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ * 
+ * @see net.jolm.control.VirtualListViewControl
+ */
+public class VirtualListViewResponseControl extends BasicControl {
+	private static final long serialVersionUID = 1L;
+	
+	public static final String OID = "2.16.840.1.113730.3.4.10";
+	
+	private final int targetPosition;
+	private final int contentCount;
+	private final int resultCode;
+	private final byte[] contextId;
+	
+	public VirtualListViewResponseControl(String id, boolean criticality, byte[] value) throws IOException {
+		super(id, criticality, value);
+		BerCodec decoder = new BerCodec(value);
+		decoder.readSequence(BerCodec.TAG_SEQUENCE);
+		this.targetPosition = decoder.readInteger(BerCodec.TAG_INTEGER);
+		this.contentCount = decoder.readInteger(BerCodec.TAG_INTEGER);
+		this.resultCode = decoder.readInteger(BerCodec.TAG_ENUMERATED);
+		if ( decoder.hasMore() && decoder.peekTag() == BerCodec.TAG_OCTET_STRING ) {
+			this.contextId = decoder.readOctetString(BerCodec.TAG_OCTET_STRING);
+		} else {
+			this.contextId = null;
+		}
+	}
+	
+	/**
+	 * Finds and decodes the virtual list view response among the response controls.
+	 * 
+	 * @param responseControls The response controls returned with the search, could be null.
+	 * @return The decoded control, or null if the server didn't return one.
+	 * @throws IOException if the control value is malformed.
+	 */
+	public static VirtualListViewResponseControl fromControls(Control[] responseControls) throws IOException {
+		if ( responseControls != null ) {
+			for ( Control control : responseControls ) {
+				if ( control instanceof VirtualListViewResponseControl ) {
+					return (VirtualListViewResponseControl)control;
+				}
+				if ( OID.equals(control.getID()) ) {
+					return new VirtualListViewResponseControl(control.getID(), control.isCritical(), control.getEncodedValue());
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return The 1-based position of the target entry in the sorted results.
+	 */
+	public int getTargetPosition() {
+		return targetPosition;
+	}
+
+	/**
+	 * @return The server's estimate of the total number of entries in the sorted results.
+	 */
+	public int getContentCount() {
+		return contentCount;
+	}
+
+	/**
+	 * @return The LDAP result code of the virtual list view operation, 0 on success.
+	 */
+	public int getResultCode() {
+		return resultCode;
+	}
+
+	public byte[] getContextId() {
+		return contextId;
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.jolm.LdapEntity;
+
+/**
+ * {@code LdapMetrics} that keeps the statistics in memory, per operation and per operation
+ * and LDAP Entity class. Useful in tests and for exposing through JMX or a status page.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public class InMemoryLdapMetrics implements LdapMetrics {
+	private final ConcurrentMap<String, LdapOperationStatistics> statistics = new ConcurrentHashMap<String, LdapOperationStatistics>();
+	
+	public void recordOperation(String operation, Class<? extends LdapEntity> entityClass, 
+			long durationInNanos, int resultSize, RuntimeException error) {
+		getOrCreateStatistics(operation).record(durationInNanos, resultSize, error != null);
+		if ( entityClass != null ) {
+			getOrCreateStatistics(getKey(operation, entityClass)).record(durationInNanos, resultSize, error != null);
+		}
+	}
+	
+	/**
+	 * @param operation The name of the operation.
+	 * @return The statistics of the operation over all the LDAP Entity classes, or null if
+	 * 		it wasn't recorded.
+	 */
+	public LdapOperationStatistics getStatistics(String operation) {
+		return statistics.get(operation);
+	}
+	
+	/**
+	 * @param operation The name of the operation.
+	 * @param entityClass The LDAP Entity class.
+	 * @return The statistics of the operation on the LDAP Entity class, or null if it 
+	 * 		wasn't recorded.
+	 */
+	public LdapOperationStatistics getStatistics(String operation, Class<? extends LdapEntity> entityClass) {
+		return statistics.get(getKey(operation, entityClass));
+	}
+	
+	/**
+	 * Removes all the statistics.
+	 */
+	public void clear() {
+		statistics.clear();
+	}
+	
+	public String toString() {
+		return "InMemoryLdapMetrics" + statistics;
+	}
+	
+	private LdapOperationStatistics getOrCreateStatistics(String key) {
+		LdapOperationStatistics result = statistics.get(key);
+		if ( result == null ) {
+			LdapOperationStatistics created = new LdapOperationStatistics();
+			result = statistics.putIfAbsent(key, created);
+			if ( result == null ) {
+				result = created;
+			}
+		}
+		return result;
+	}
+	
+	private String getKey(String operation, Class<? extends LdapEntity> entityClass) {
+		return operation + ":" + entityClass.getName();
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.metrics;
+
+import net.jolm.LdapEntity;
+
+/**
+ * Service provider interface for recording the metrics of {@code JolmLdapTemplate} 
+ * operations. Implementations adapt it to a metrics library, e.g. by recording the
+ * duration in a timer tagged with the operation and the entity class. 
+ * 
+ * <p>Implementations are called on the thread that runs the operation, concurrently from
+ * many threads, and must be thread safe and cheap.</p>
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ * 
+ * @see NoOpLdapMetrics
+ * @see InMemoryLdapMetrics
+ */
+public interface LdapMetrics {
+	public static final String CREATE = "create";
+	public static final String GET = "get";
+	public static final String FIND = "find";
+	public static final String FIND_BY_EXAMPLE = "findByExample";
+	public static final String FIND_BY_EXAMPLES = "findByExamples";
+	public static final String LIST_CHILDREN = "listChildren";
+	public static final String MODIFY = "modify";
+	public static final String DELETE = "delete";
+	
+	/**
+	 * Records one operation.
+	 * 
+	 * @param operation The name of the operation, one of the constants of this interface.
+	 * @param entityClass The LDAP Entity class of the operation.
+	 * @param durationInNanos The duration of the operation in nanoseconds.
+	 * @param resultSize The number of LDAP Entities returned, 0 for the write operations.
+	 * @param error The exception the operation failed with, or null if it succeeded.
+	 */
+	public void recordOperation(String operation, Class<? extends LdapEntity> entityClass, 
+			long durationInNanos, int resultSize, RuntimeException error);
+}
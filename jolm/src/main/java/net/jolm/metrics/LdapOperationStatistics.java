@@ -0,0 +1,166 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Statistics of one operation recorded by {@link InMemoryLdapMetrics}: counts, errors, 
+ * result sizes and a histogram of the durations. The histogram has fixed buckets whose 
+ * upper bounds are {@link #getBucketBoundsInMs()}, plus one for the longer durations. 
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public class LdapOperationStatistics {
+	private static final long[] BUCKET_BOUNDS_IN_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+	
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong errorCount = new AtomicLong();
+	private final AtomicLong totalResultSize = new AtomicLong();
+	private final AtomicLong totalTimeInNanos = new AtomicLong();
+	private final AtomicLong maxTimeInNanos = new AtomicLong();
+	private final AtomicLongArray histogram = new AtomicLongArray(BUCKET_BOUNDS_IN_MS.length + 1);
+	
+	/**
+	 * @return The upper bounds of the histogram buckets in milliseconds.
+	 */
+	public static long[] getBucketBoundsInMs() {
+		return BUCKET_BOUNDS_IN_MS.clone();
+	}
+	
+	void record(long durationInNanos, int resultSize, boolean failed) {
+		count.incrementAndGet();
+		if ( failed ) {
+			errorCount.incrementAndGet();
+		}
+		totalResultSize.addAndGet(resultSize);
+		totalTimeInNanos.addAndGet(durationInNanos);
+		long max = maxTimeInNanos.get();
+		while ( durationInNanos > max && !maxTimeInNanos.compareAndSet(max, durationInNanos) ) {
+			max = maxTimeInNanos.get();
+		}
+		histogram.incrementAndGet(getBucket(durationInNanos));
+	}
+	
+	/**
+	 * @return Number of times the operation ran, including the failures.
+	 */
+	public long getCount() {
+		return count.get();
+	}
+	
+	/**
+	 * @return Number of times the operation failed.
+	 */
+	public long getErrorCount() {
+		return errorCount.get();
+	}
+	
+	/**
+	 * @return Total number of LDAP Entities returned.
+	 */
+	public long getTotalResultSize() {
+		return totalResultSize.get();
+	}
+	
+	/**
+	 * @return Average number of LDAP Entities returned per operation, 0 if it never ran.
+	 */
+	public double getAverageResultSize() {
+		long count = this.count.get();
+		return count == 0 ? 0 : (double)totalResultSize.get() / count;
+	}
+	
+	/**
+	 * @return Total time of all the operations in milliseconds.
+	 */
+	public double getTotalTimeInMs() {
+		return totalTimeInNanos.get() / 1000000d;
+	}
+	
+	/**
+	 * @return Average time per operation in milliseconds, 0 if it never ran.
+	 */
+	public double getAverageTimeInMs() {
+		long count = this.count.get();
+		return count == 0 ? 0 : getTotalTimeInMs() / count;
+	}
+	
+	/**
+	 * @return The longest time of an operation in milliseconds.
+	 */
+	public double getMaxTimeInMs() {
+		return maxTimeInNanos.get() / 1000000d;
+	}
+	
+	/**
+	 * @return The counts of the operations per bucket of duration. The last bucket counts 
+	 * 		the operations longer than the last of {@link #getBucketBoundsInMs()}.
+	 */
+	public long[] getHistogram() {
+		long[] result = new long[histogram.length()];
+		for ( int i = 0; i < result.length; i++ ) {
+			result[i] = histogram.get(i);
+		}
+		return result;
+	}
+	
+	/**
+	 * Estimates a percentile of the durations from the histogram.
+	 * 
+	 * @param percentile The percentile, between 0 and 100.
+	 * @return The upper bound in milliseconds of the bucket the percentile falls into, the 
+	 * 		longest time if it falls into the last bucket, or 0 if the operation never ran.
+	 */
+	public double getPercentileInMs(double percentile) {
+		if ( percentile < 0 || percentile > 100 ) {
+			throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+		}
+		long[] counts = getHistogram();
+		long total = 0;
+		for ( long bucketCount : counts ) {
+			total += bucketCount;
+		}
+		if ( total == 0 ) {
+			return 0;
+		}
+		long rank = (long)Math.ceil(total * percentile / 100);
+		long seen = 0;
+		for ( int i = 0; i < BUCKET_BOUNDS_IN_MS.length; i++ ) {
+			seen += counts[i];
+			if ( seen >= rank && seen > 0 ) {
+				return BUCKET_BOUNDS_IN_MS[i];
+			}
+		}
+		return getMaxTimeInMs();
+	}
+	
+	public String toString() {
+		return "count=" + getCount() + ", errors=" + getErrorCount() + ", averageResultSize=" + getAverageResultSize()
+			+ ", averageTimeInMs=" + getAverageTimeInMs() + ", maxTimeInMs=" + getMaxTimeInMs();
+	}
+	
+	private int getBucket(long durationInNanos) {
+		for ( int i = 0; i < BUCKET_BOUNDS_IN_MS.length; i++ ) {
+			if ( durationInNanos <= BUCKET_BOUNDS_IN_MS[i] * 1000000 ) {
+				return i;
+			}
+		}
+		return BUCKET_BOUNDS_IN_MS.length;
+	}
+}
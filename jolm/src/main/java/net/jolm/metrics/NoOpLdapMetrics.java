@@ -0,0 +1,35 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.metrics;
+
+import net.jolm.LdapEntity;
+
+/**
+ * {@code LdapMetrics} that records nothing, the default of {@code JolmLdapTemplate}.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public final class NoOpLdapMetrics implements LdapMetrics {
+	public static final NoOpLdapMetrics INSTANCE = new NoOpLdapMetrics();
+	
+	private NoOpLdapMetrics() {
+	}
+	
+	public void recordOperation(String operation, Class<? extends LdapEntity> entityClass, 
+			long durationInNanos, int resultSize, RuntimeException error) {
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.pool;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Borrow statistics of one connection pool of {@link PooledContextSource}. The wait time
+ * is the time spent in taking a connection from the pool, including the time to open and 
+ * bind a new connection and to validate it.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public class PoolStatistics {
+	private final AtomicLong borrowCount = new AtomicLong();
+	private final AtomicLong failedBorrowCount = new AtomicLong();
+	private final AtomicLong totalWaitInNanos = new AtomicLong();
+	private final AtomicLong maxWaitInNanos = new AtomicLong();
+	
+	void recordBorrow(long waitInNanos, boolean succeeded) {
+		if ( succeeded ) {
+			borrowCount.incrementAndGet();
+		} else {
+			failedBorrowCount.incrementAndGet();
+		}
+		totalWaitInNanos.addAndGet(waitInNanos);
+		long max = maxWaitInNanos.get();
+		while ( waitInNanos > max && !maxWaitInNanos.compareAndSet(max, waitInNanos) ) {
+			max = maxWaitInNanos.get();
+		}
+	}
+	
+	/**
+	 * @return Number of connections borrowed from the pool.
+	 */
+	public long getBorrowCount() {
+		return borrowCount.get();
+	}
+	
+	/**
+	 * @return Number of borrows that failed, e.g. the pool was exhausted for longer than 
+	 * 		{@code maxWait} or a new connection couldn't be opened.
+	 */
+	public long getFailedBorrowCount() {
+		return failedBorrowCount.get();
+	}
+	
+	/**
+	 * @return Total wait time of all the borrows in milliseconds.
+	 */
+	public double getTotalWaitInMs() {
+		return totalWaitInNanos.get() / 1000000d;
+	}
+	
+	/**
+	 * @return Average wait time per borrow in milliseconds, 0 if nothing was borrowed.
+	 */
+	public double getAverageWaitInMs() {
+		long count = borrowCount.get() + failedBorrowCount.get();
+		return count == 0 ? 0 : getTotalWaitInMs() / count;
+	}
+	
+	/**
+	 * @return The longest wait time of a borrow in milliseconds.
+	 */
+	public double getMaxWaitInMs() {
+		return maxWaitInNanos.get() / 1000000d;
+	}
+	
+	/**
+	 * Resets the statistics.
+	 */
+	public void reset() {
+		borrowCount.set(0);
+		failedBorrowCount.set(0);
+		totalWaitInNanos.set(0);
+		maxWaitInNanos.set(0);
+	}
+	
+	public String toString() {
+		return "borrows=" + getBorrowCount() + ", failedBorrows=" + getFailedBorrowCount() 
+			+ ", averageWaitInMs=" + getAverageWaitInMs() + ", maxWaitInMs=" + getMaxWaitInMs();
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.pool;
+
+import javax.naming.directory.DirContext;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.ldap.NamingException;
+import org.springframework.ldap.core.ContextSource;
+import org.springframework.ldap.pool.factory.PoolingContextSource;
+
+/**
+ * {@code ContextSource} that takes read-only and read-write contexts from two separate 
+ * connection pools, so that a burst of searches can't starve writes of connections and 
+ * vice versa, and records the time spent in borrowing from each pool. Contexts are 
+ * returned to their pool when they are closed. Use {@link PooledContextSourceBuilder} 
+ * to create one.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public class PooledContextSource implements ContextSource, DisposableBean {
+	private final PoolingContextSource readOnlyPool;
+	private final PoolingContextSource readWritePool;
+	private final PoolStatistics readOnlyStatistics = new PoolStatistics();
+	private final PoolStatistics readWriteStatistics = new PoolStatistics();
+	
+	PooledContextSource(PoolingContextSource readOnlyPool, PoolingContextSource readWritePool) {
+		this.readOnlyPool = readOnlyPool;
+		this.readWritePool = readWritePool;
+	}
+	
+	public DirContext getReadOnlyContext() throws NamingException {
+		long start = System.nanoTime();
+		boolean succeeded = false;
+		try {
+			DirContext context = readOnlyPool.getReadOnlyContext();
+			succeeded = true;
+			return context;
+		} finally {
+			readOnlyStatistics.recordBorrow(System.nanoTime() - start, succeeded);
+		}
+	}
+	
+	public DirContext getReadWriteContext() throws NamingException {
+		long start = System.nanoTime();
+		boolean succeeded = false;
+		try {
+			DirContext context = readWritePool.getReadWriteContext();
+			succeeded = true;
+			return context;
+		} finally {
+			readWriteStatistics.recordBorrow(System.nanoTime() - start, succeeded);
+		}
+	}
+	
+	/**
+	 * Closes all the pooled connections.
+	 */
+	public void destroy() throws Exception {
+		try {
+			readOnlyPool.destroy();
+		} finally {
+			readWritePool.destroy();
+		}
+	}
+	
+	public PoolStatistics getReadOnlyStatistics() {
+		return readOnlyStatistics;
+	}
+	
+	public PoolStatistics getReadWriteStatistics() {
+		return readWriteStatistics;
+	}
+	
+	/**
+	 * @return Number of read-only connections currently borrowed.
+	 */
+	public int getReadOnlyNumActive() {
+		return readOnlyPool.getNumActive();
+	}
+	
+	/**
+	 * @return Number of read-only connections currently idle in the pool.
+	 */
+	public int getReadOnlyNumIdle() {
+		return readOnlyPool.getNumIdle();
+	}
+	
+	/**
+	 * @return Number of read-write connections currently borrowed.
+	 */
+	public int getReadWriteNumActive() {
+		return readWritePool.getNumActive();
+	}
+	
+	/**
+	 * @return Number of read-write connections currently idle in the pool.
+	 */
+	public int getReadWriteNumIdle() {
+		return readWritePool.getNumIdle();
+	}
+	
+	/**
+	 * @return The underlying pool of read-only connections.
+	 */
+	public PoolingContextSource getReadOnlyPool() {
+		return readOnlyPool;
+	}
+	
+	/**
+	 * @return The underlying pool of read-write connections.
+	 */
+	public PoolingContextSource getReadWritePool() {
+		return readWritePool;
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.pool;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+import org.springframework.ldap.core.ContextSource;
+import org.springframework.ldap.core.support.AbstractContextSource;
+import org.springframework.ldap.pool.factory.PoolingContextSource;
+import org.springframework.ldap.pool.validation.DefaultDirContextValidator;
+
+/**
+ * Builds a {@link PooledContextSource} on top of a {@code ContextSource} that opens and 
+ * binds the connections, e.g. {@code LdapContextSource}. The read-only and read-write pools
+ * are sized separately. Connections can be validated by a search on borrow and while idle,
+ * and idle connections can be evicted by a background thread:
+ * 
+ * <pre>
+ * PooledContextSource contextSource = new PooledContextSourceBuilder(ldapContextSource)
+ * 	.readOnlyPool(2, 8, 16)
+ * 	.readWritePool(1, 2, 4)
+ * 	.maxWait(1000)
+ * 	.validationQuery("", "objectclass=*")
+ * 	.testOnBorrow(true)
+ * 	.eviction(60000, 300000)
+ * 	.build();
+ * JolmLdapTemplate template = new JolmLdapTemplate(contextSource);
+ * </pre>
+ * 
+ * <p>The target {@code ContextSource} should have the JNDI connection pooling disabled, 
+ * i.e. {@code pooled} set to false. The pools require commons-pool on the classpath.</p>
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public class PooledContextSourceBuilder {
+	private final static Log log = LogFactory.getLog(PooledContextSourceBuilder.class);
+	
+	private final ContextSource contextSource;
+	private int readOnlyMinIdle = GenericKeyedObjectPool.DEFAULT_MIN_IDLE;
+	private int readOnlyMaxIdle = GenericKeyedObjectPool.DEFAULT_MAX_IDLE;
+	private int readOnlyMaxActive = GenericKeyedObjectPool.DEFAULT_MAX_ACTIVE;
+	private int readWriteMinIdle = GenericKeyedObjectPool.DEFAULT_MIN_IDLE;
+	private int readWriteMaxIdle = GenericKeyedObjectPool.DEFAULT_MAX_IDLE;
+	private int readWriteMaxActive = GenericKeyedObjectPool.DEFAULT_MAX_ACTIVE;
+	private long maxWaitInMs = GenericKeyedObjectPool.DEFAULT_MAX_WAIT;
+	private String validationBase = "";
+	private String validationFilter = "objectclass=*";
+	private boolean testOnBorrow;
+	private boolean testWhileIdle;
+	private long timeBetweenEvictionRunsInMs = GenericKeyedObjectPool.DEFAULT_TIME_BETWEEN_EVICTION_RUNS_MILLIS;
+	private long minEvictableIdleTimeInMs = GenericKeyedObjectPool.DEFAULT_MIN_EVICTABLE_IDLE_TIME_MILLIS;
+	
+	/**
+	 * @param contextSource The {@code ContextSource} that opens the pooled connections.
+	 */
+	public PooledContextSourceBuilder(ContextSource contextSource) {
+		if ( contextSource == null ) {
+			throw new IllegalArgumentException("ContextSource is required.");
+		}
+		this.contextSource = contextSource;
+	}
+	
+	/**
+	 * Sizes the pool of read-only connections.
+	 * 
+	 * @param minIdle The minimum number of idle connections the evictor keeps in the pool.
+	 * @param maxIdle The maximum number of idle connections kept in the pool.
+	 * @param maxActive The maximum number of connections borrowed at the same time, 
+	 * 		negative for no limit.
+	 */
+	public PooledContextSourceBuilder readOnlyPool(int minIdle, int maxIdle, int maxActive) {
+		this.readOnlyMinIdle = minIdle;
+		this.readOnlyMaxIdle = maxIdle;
+		this.readOnlyMaxActive = maxActive;
+		return this;
+	}
+	
+	/**
+	 * Sizes the pool of read-write connections.
+	 * 
+	 * @param minIdle The minimum number of idle connections the evictor keeps in the pool.
+	 * @param maxIdle The maximum number of idle connections kept in the pool.
+	 * @param maxActive The maximum number of connections borrowed at the same time, 
+	 * 		negative for no limit.
+	 */
+	public PooledContextSourceBuilder readWritePool(int minIdle, int maxIdle, int maxActive) {
+		this.readWriteMinIdle = minIdle;
+		this.readWriteMaxIdle = maxIdle;
+		this.readWriteMaxActive = maxActive;
+		return this;
+	}
+	
+	/**
+	 * Sets how long a borrow waits for a connection when the pool is exhausted before it 
+	 * fails. It waits indefinitely when it is negative, which is the default.
+	 */
+	public PooledContextSourceBuilder maxWait(long maxWaitInMs) {
+		this.maxWaitInMs = maxWaitInMs;
+		return this;
+	}
+	
+	/**
+	 * Sets the search used to validate the connections. It is an object scope search of 
+	 * {@code (objectclass=*)} with the empty base by default, which is the base DN of the 
+	 * target {@code ContextSource} if it has one, and the root DSE otherwise. 
+	 * 
+	 * @param base The base of the validation search, relative to the base DN of the target
+	 * 		{@code ContextSource}.
+	 * @param filter The filter of the validation search.
+	 */
+	public PooledContextSourceBuilder validationQuery(String base, String filter) {
+		this.validationBase = base;
+		this.validationFilter = filter;
+		return this;
+	}
+	
+	/**
+	 * Sets whether connections are validated before they are borrowed. Invalid connections
+	 * are dropped and another one is borrowed.
+	 */
+	public PooledContextSourceBuilder testOnBorrow(boolean testOnBorrow) {
+		this.testOnBorrow = testOnBorrow;
+		return this;
+	}
+	
+	/**
+	 * Sets whether idle connections are validated by the evictor. Takes effect only if 
+	 * eviction is enabled.
+	 */
+	public PooledContextSourceBuilder testWhileIdle(boolean testWhileIdle) {
+		this.testWhileIdle = testWhileIdle;
+		return this;
+	}
+	
+	/**
+	 * Enables the evictor thread, which closes connections idle for longer than 
+	 * {@code minEvictableIdleTimeInMs} and then tops the pools up to their {@code minIdle}.
+	 * 
+	 * @param timeBetweenEvictionRunsInMs The interval between evictor runs.
+	 * @param minEvictableIdleTimeInMs The idle time after which a connection is evicted.
+	 */
+	public PooledContextSourceBuilder eviction(long timeBetweenEvictionRunsInMs, long minEvictableIdleTimeInMs) {
+		this.timeBetweenEvictionRunsInMs = timeBetweenEvictionRunsInMs;
+		this.minEvictableIdleTimeInMs = minEvictableIdleTimeInMs;
+		return this;
+	}
+	
+	/**
+	 * @return A new {@code PooledContextSource} with the settings of the builder.
+	 */
+	public PooledContextSource build() {
+		if ( contextSource instanceof AbstractContextSource && ((AbstractContextSource)contextSource).isPooled() ) {
+			log.warn("JNDI connection pooling is enabled on the target ContextSource, set pooled to false.");
+		}
+		return new PooledContextSource(createPool(readOnlyMinIdle, readOnlyMaxIdle, readOnlyMaxActive), 
+				createPool(readWriteMinIdle, readWriteMaxIdle, readWriteMaxActive));
+	}
+	
+	private PoolingContextSource createPool(int minIdle, int maxIdle, int maxActive) {
+		DefaultDirContextValidator validator = new DefaultDirContextValidator();
+		validator.setBase(validationBase);
+		validator.setFilter(validationFilter);
+		
+		PoolingContextSource pool = new PoolingContextSource();
+		pool.setContextSource(contextSource);
+		pool.setDirContextValidator(validator);
+		pool.setMinIdle(minIdle);
+		pool.setMaxIdle(maxIdle);
+		pool.setMaxActive(maxActive);
+		pool.setMaxWait(maxWaitInMs);
+		pool.setWhenExhaustedAction(GenericKeyedObjectPool.WHEN_EXHAUSTED_BLOCK);
+		pool.setTestOnBorrow(testOnBorrow);
+		pool.setTestWhileIdle(testWhileIdle);
+		pool.setTimeBetweenEvictionRunsMillis(timeBetweenEvictionRunsInMs);
+		pool.setMinEvictableIdleTimeMillis(minEvictableIdleTimeInMs);
+		return pool;
+	}
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.routing;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.naming.directory.DirContext;
+import javax.naming.ldap.LdapContext;
+
+import org.springframework.ldap.NamingException;
+import org.springframework.ldap.core.ContextSource;
+
+/**
+ * {@code ContextSource} that sends writes to the master and spreads reads over the 
+ * replicas. {@code LdapTemplate} takes read-only contexts for lookups and searches, and 
+ * read-write contexts for binds, modifications and deletes, so a {@code JolmLdapTemplate} 
+ * on top of it routes {@code get}, {@code find*} and {@code listChildren} to the replicas
+ * and {@code create}, {@code modify} and {@code delete*} to the master.
+ * 
+ * <p>Replicas are picked round-robin, or by the least number of outstanding requests, 
+ * i.e. read-only contexts handed out and not closed yet. Since replication lags behind 
+ * the master, a thread can be made to read from the master for {@code readYourWritesWindowInMs} 
+ * after its last write.</p>
+ * 
+ * <p>The window is kept per thread, for the thread that took the read-write context. The
+ * batch operations of {@code JolmLdapTemplate} start it for the calling thread once their
+ * concurrent writes are done. Writes run on other threads, e.g. by an 
+ * {@code AsyncJolmLdapTemplate}, only start it for those threads: call {@link #recordWrite()}
+ * on the thread that is to read them once they are done.</p>
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public class ReplicatedContextSource implements ContextSource {
+	/**
+	 * How the replica of a read is picked.
+	 */
+	public enum LoadBalancingStrategy {
+		ROUND_ROBIN, 
+		LEAST_OUTSTANDING_REQUESTS
+	}
+	
+	private final ContextSource master;
+	private final List<ContextSource> replicas;
+	private final AtomicInteger[] outstandingRequests;
+	private final AtomicLong[] readCounts;
+	private final AtomicInteger nextReplica = new AtomicInteger();
+	private final ThreadLocal<Long> lastWriteTime = new ThreadLocal<Long>();
+	private LoadBalancingStrategy loadBalancingStrategy = LoadBalancingStrategy.ROUND_ROBIN;
+	private long readYourWritesWindowInMs;
+	
+	/**
+	 * @param master The {@code ContextSource} of the master server.
+	 * @param replicas The {@code ContextSource}s of the replica servers. Reads go to the 
+	 * 		master if there is none.
+	 */
+	public ReplicatedContextSource(ContextSource master, ContextSource[] replicas) {
+		if ( master == null ) {
+			throw new IllegalArgumentException("The master ContextSource is required.");
+		}
+		this.master = master;
+		this.replicas = replicas == null ? new ArrayList<ContextSource>() : Arrays.asList(replicas);
+		this.outstandingRequests = new AtomicInteger[this.replicas.size()];
+		this.readCounts = new AtomicLong[this.replicas.size()];
+		for ( int i = 0; i < this.replicas.size(); i++ ) {
+			outstandingRequests[i] = new AtomicInteger();
+			readCounts[i] = new AtomicLong();
+		}
+	}
+	
+	public DirContext getReadOnlyContext() throws NamingException {
+		if ( replicas.isEmpty() || isWithinReadYourWritesWindow() ) {
+			return master.getReadOnlyContext();
+		}
+		
+		int replica = selectReplica();
+		readCounts[replica].incrementAndGet();
+		DirContext context = replicas.get(replica).getReadOnlyContext();
+		if ( loadBalancingStrategy != LoadBalancingStrategy.LEAST_OUTSTANDING_REQUESTS ) {
+			return context;
+		}
+		outstandingRequests[replica].incrementAndGet();
+		return createTrackedContext(context, outstandingRequests[replica]);
+	}
+	
+	public DirContext getReadWriteContext() throws NamingException {
+		recordWrite();
+		return master.getReadWriteContext();
+	}
+	
+	/**
+	 * Starts the read-your-writes window of the current thread, for writes done on its 
+	 * behalf by other threads.
+	 */
+	public void recordWrite() {
+		if ( readYourWritesWindowInMs > 0 ) {
+			lastWriteTime.set(System.currentTimeMillis());
+		}
+	}
+	
+	/**
+	 * Makes the current thread read from the replicas again before the read-your-writes 
+	 * window of its last write is over.
+	 */
+	public void clearReadYourWrites() {
+		lastWriteTime.remove();
+	}
+	
+	private boolean isWithinReadYourWritesWindow() {
+		Long time = lastWriteTime.get();
+		if ( time == null ) {
+			return false;
+		}
+		if ( System.currentTimeMillis() - time.longValue() < readYourWritesWindowInMs ) {
+			return true;
+		}
+		lastWriteTime.remove();
+		return false;
+	}
+	
+	private int selectReplica() {
+		int start = (nextReplica.getAndIncrement() & Integer.MAX_VALUE) % replicas.size();
+		if ( loadBalancingStrategy == LoadBalancingStrategy.ROUND_ROBIN ) {
+			return start;
+		}
+		
+		//Starts from the round-robin position so ties are spread as well.
+		int result = start;
+		for ( int i = 1; i < replicas.size(); i++ ) {
+			int replica = (start + i) % replicas.size();
+			if ( outstandingRequests[replica].get() < outstandingRequests[result].get() ) {
+				result = replica;
+			}
+		}
+		return result;
+	}
+	
+	private DirContext createTrackedContext(final DirContext context, final AtomicInteger outstanding) {
+		Class<?>[] interfaces = context instanceof LdapContext 
+			? new Class<?>[] {LdapContext.class, TrackedContext.class} 
+			: new Class<?>[] {DirContext.class, TrackedContext.class};
+		final AtomicBoolean closed = new AtomicBoolean();
+		return (DirContext)Proxy.newProxyInstance(getClass().getClassLoader(), interfaces, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if ( method.getName().equals("getTargetContext") && method.getDeclaringClass() == TrackedContext.class ) {
+					return context;
+				}
+				if ( method.getName().equals("close") && (args == null || args.length == 0) && closed.compareAndSet(false, true) ) {
+					outstanding.decrementAndGet();
+				}
+				try {
+					return method.invoke(context, args);
+				} catch (InvocationTargetException e) {
+					throw e.getTargetException();
+				}
+			}
+		});
+	}
+	
+	public ContextSource getMaster() {
+		return master;
+	}
+	
+	public List<ContextSource> getReplicas() {
+		return replicas;
+	}
+	
+	/**
+	 * @param replica The index of the replica.
+	 * @return Number of read-only contexts of the replica handed out and not closed yet. It 
+	 * 		is only tracked with {@code LEAST_OUTSTANDING_REQUESTS}.
+	 */
+	public int getOutstandingRequests(int replica) {
+		return outstandingRequests[replica].get();
+	}
+	
+	/**
+	 * @param replica The index of the replica.
+	 * @return Number of reads routed to the replica.
+	 */
+	public long getReadCount(int replica) {
+		return readCounts[replica].get();
+	}
+	
+	public LoadBalancingStrategy getLoadBalancingStrategy() {
+		return loadBalancingStrategy;
+	}
+	
+	public void setLoadBalancingStrategy(LoadBalancingStrategy loadBalancingStrategy) {
+		this.loadBalancingStrategy = loadBalancingStrategy;
+	}
+	
+	public long getReadYourWritesWindowInMs() {
+		return readYourWritesWindowInMs;
+	}
+	
+	/**
+	 * Sets how long a thread reads from the master after its last write, so it sees its own
+	 * writes despite the replication lag. It is disabled when it is 0, which is the default.
+	 */
+	public void setReadYourWritesWindowInMs(long readYourWritesWindowInMs) {
+		this.readYourWritesWindowInMs = readYourWritesWindowInMs;
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2008 (C) Chunyun Zhao(Chunyun.Zhao@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.jolm.routing;
+
+import javax.naming.directory.DirContext;
+
+/**
+ * Implemented by the contexts {@link ReplicatedContextSource} hands out to track the 
+ * outstanding requests of each replica. Calls are passed through to the target context, 
+ * and {@code close()} marks the request as completed.
+ * 
+ * @author Chunyun Zhao
+ * @since 1.0
+ */
+public interface TrackedContext {
+	/**
+	 * @return The context of the replica.
+	 */
+	public DirContext getTargetContext();
+}
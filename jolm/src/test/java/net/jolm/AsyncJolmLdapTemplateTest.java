@@ -0,0 +1,57 @@
+package net.jolm;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import net.jolm.fixture.InMemoryLdapServer;
+import net.jolm.fixture.types.Person;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ldap.NameNotFoundException;
+
+public class AsyncJolmLdapTemplateTest {
+	private InMemoryLdapServer server = new InMemoryLdapServer();
+	private AsyncJolmLdapTemplate template;
+	
+	@Before public void setUp() throws Exception {
+		server.start();
+		server.addPeople(10);
+		template = new AsyncJolmLdapTemplate(server.createJolmLdapTemplate(), 3);
+	}
+	
+	@After public void tearDown() {
+		template.destroy();
+		server.stop();
+	}
+	
+	@Test public void check_fan_out() throws Exception {
+		List<Future<LdapEntity>> futures = new ArrayList<Future<LdapEntity>>();
+		for ( int i = 0; i < 10; i++ ) {
+			futures.add(template.get("cn=person" + i + ",ou=people", Person.class));
+		}
+		for ( int i = 0; i < 10; i++ ) {
+			assertEquals("person" + i, ((Person)futures.get(i).get()).getCn());
+		}
+	}
+	
+	@Test public void check_modify_then_find() throws Exception {
+		Person person = new Person("person1", "changed");
+		template.modify(InMemoryLdapServer.PEOPLE, person).get();
+		assertEquals(1, template.find(InMemoryLdapServer.PEOPLE, "(sn=changed)", Person.class).get().size());
+	}
+	
+	@Test public void check_failure_is_reported_by_future() throws Exception {
+		try {
+			template.get("cn=missing,ou=people", Person.class).get();
+			fail("ExecutionException expected");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof NameNotFoundException);
+		}
+	}
+}
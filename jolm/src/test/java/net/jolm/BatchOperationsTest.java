@@ -0,0 +1,195 @@
+package net.jolm;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jolm.control.TreeDeleteControl;
+import net.jolm.fixture.InMemoryLdapServer;
+import net.jolm.fixture.types.Person;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ldap.NameAlreadyBoundException;
+import org.springframework.ldap.NameNotFoundException;
+import org.springframework.ldap.core.DistinguishedName;
+
+import com.unboundid.ldap.listener.interceptor.InMemoryInterceptedDeleteRequest;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+import com.unboundid.ldap.sdk.LDAPException;
+import com.unboundid.ldap.sdk.ResultCode;
+
+public class BatchOperationsTest {
+	private InMemoryLdapServer server = new InMemoryLdapServer();
+	private JolmLdapTemplate template;
+	
+	@Before public void setUp() throws Exception {
+		server.start();
+		server.addPeople(3);
+		template = server.createJolmLdapTemplate();
+	}
+	
+	@After public void tearDown() {
+		server.stop();
+	}
+	
+	@Test public void check_create_all_parents_first() {
+		List<Person> people = new ArrayList<Person>();
+		people.add(newPerson("cn=child,cn=parent,ou=people", "child"));
+		people.add(newPerson("cn=parent,ou=people", "parent"));
+		for ( int i = 0; i < 10; i++ ) {
+			people.add(newPerson("cn=batch" + i + ",ou=people", "batch"));
+		}
+		
+		LdapBatchResult result = template.createAll(people);
+		assertTrue(result.toString(), result.isSuccessful());
+		assertEquals(12, result.getSucceededCount());
+		assertEquals("child", ((Person)template.get("cn=child,cn=parent,ou=people", Person.class)).getSn());
+	}
+	
+	@Test public void check_create_all_skips_children_of_failed_parent() {
+		LdapBatchResult result = template.createAll(Arrays.asList(
+				newPerson("cn=person1,ou=people", "exists"), 
+				newPerson("cn=child,cn=person1,ou=people", "child"),
+				newPerson("cn=orphan,cn=person1,ou=people", "orphan"),
+				newPerson("cn=new,ou=people", "new")));
+		assertEquals(1, result.getSucceededCount());
+		assertTrue(result.getFailure("cn=person1,ou=people") instanceof NameAlreadyBoundException);
+		assertTrue(result.getFailure("cn=child,cn=person1,ou=people") instanceof IllegalStateException);
+		assertTrue(result.getFailure("cn=orphan,cn=person1,ou=people") instanceof IllegalStateException);
+	}
+	
+	@Test public void check_modify_all() {
+		template.setBatchConcurrency(1);
+		LdapBatchResult result = template.modifyAll(Arrays.asList(
+				newPerson("cn=person0,ou=people", "changed"), newPerson("cn=missing,ou=people", "missing")));
+		assertEquals(1, result.getSucceededCount());
+		assertNotNull(result.getFailure("cn=missing,ou=people"));
+		assertEquals("changed", ((Person)template.get("cn=person0,ou=people", Person.class)).getSn());
+	}
+	
+	@Test public void check_delete_all_children_first() {
+		template.create("cn=person0,ou=people", new Person("child", "child"));
+		LdapBatchResult result = template.deleteAll(Arrays.asList(
+				"cn=person0,ou=people", "cn=child,cn=person0,ou=people", "cn=person1,ou=people"));
+		assertTrue(result.toString(), result.isSuccessful());
+		assertEquals(1, template.find(InMemoryLdapServer.PEOPLE, "(objectclass=person)", Person.class).size());
+	}
+	
+	@Test public void check_delete_subtree() {
+		template.setPageSize(2);
+		template.create("cn=person0,ou=people", new Person("child", "child"));
+		template.create("cn=child,cn=person0,ou=people", new Person("grandchild", "grandchild"));
+		final List<Integer> progress = new ArrayList<Integer>();
+		LdapBatchResult result = template.deleteSubtree(InMemoryLdapServer.PEOPLE, new LdapBatchProgressHandler() {
+			public void handleProgress(LdapBatchResult result, int totalCount) {
+				assertEquals(6, totalCount);
+				progress.add(result.getSucceededCount());
+			}
+		});
+		assertTrue(result.toString(), result.isSuccessful());
+		assertEquals(Arrays.asList(1, 2, 5, 6), progress);
+		assertTrue(template.find("", "(objectclass=*)", Person.class).isEmpty());
+	}
+	
+	@Test public void check_delete_subtree_above_size_limit() throws Exception {
+		InMemoryLdapServer limitedServer = new InMemoryLdapServer();
+		limitedServer.setMaxSizeLimit(600);
+		limitedServer.start();
+		try {
+			limitedServer.addPeople(700);
+			JolmLdapTemplate limitedTemplate = limitedServer.createJolmLdapTemplate();
+			limitedTemplate.setTreeDelete(false);
+			limitedTemplate.deleteRecursively(InMemoryLdapServer.PEOPLE);
+			assertTrue(limitedTemplate.find("", "(objectclass=*)", null, Person.class, 100).isEmpty());
+		} finally {
+			limitedServer.stop();
+		}
+	}
+	
+	@Test public void check_tree_delete_refused_for_one_subtree() throws Exception {
+		TreeDeleteInterceptor interceptor = new TreeDeleteInterceptor(ResultCode.UNWILLING_TO_PERFORM, "cn=person0");
+		InMemoryLdapServer refusingServer = new InMemoryLdapServer();
+		refusingServer.setOperationInterceptor(interceptor);
+		refusingServer.start();
+		try {
+			refusingServer.addPeople(2);
+			JolmLdapTemplate refusingTemplate = refusingServer.createJolmLdapTemplate();
+			refusingTemplate.create("cn=person0,ou=people", new Person("child", "doe"));
+			refusingTemplate.create("cn=person1,ou=people", new Person("child", "doe"));
+			
+			//Falls back to deleting the entries one by one for the refused subtree only.
+			refusingTemplate.deleteRecursively("cn=person0,ou=people");
+			refusingTemplate.deleteRecursively("cn=person1,ou=people");
+			assertEquals(2, interceptor.getTreeDeleteCount());
+			assertTrue(refusingTemplate.find("", "(objectclass=*)", Person.class).isEmpty());
+		} finally {
+			refusingServer.stop();
+		}
+	}
+	
+	@Test public void check_tree_delete_unavailable() throws Exception {
+		TreeDeleteInterceptor interceptor = new TreeDeleteInterceptor(ResultCode.UNAVAILABLE_CRITICAL_EXTENSION, "");
+		InMemoryLdapServer refusingServer = new InMemoryLdapServer();
+		refusingServer.setOperationInterceptor(interceptor);
+		refusingServer.start();
+		try {
+			refusingServer.addPeople(2);
+			JolmLdapTemplate refusingTemplate = refusingServer.createJolmLdapTemplate();
+			refusingTemplate.deleteRecursively("cn=person0,ou=people");
+			refusingTemplate.deleteRecursively("cn=person1,ou=people");
+			//The control is not sent again once the server said it doesn't support it.
+			assertEquals(1, interceptor.getTreeDeleteCount());
+			assertTrue(refusingTemplate.find("", "(objectclass=*)", Person.class).isEmpty());
+		} finally {
+			refusingServer.stop();
+		}
+	}
+	
+	@Test(expected = NameNotFoundException.class)
+	public void check_delete_subtree_missing() {
+		template.deleteSubtree("ou=missing", null);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void check_create_all_requires_dn() {
+		template.createAll(Arrays.asList(new Person("john", "doe")));
+	}
+	
+	/**
+	 * Rejects the delete requests with the Tree Delete control on the DNs containing a text.
+	 */
+	private static class TreeDeleteInterceptor extends InMemoryOperationInterceptor {
+		private final ResultCode resultCode;
+		private final String refusedDn;
+		private final AtomicInteger treeDeleteCount = new AtomicInteger();
+		
+		public TreeDeleteInterceptor(ResultCode resultCode, String refusedDn) {
+			this.resultCode = resultCode;
+			this.refusedDn = refusedDn;
+		}
+		
+		public void processDeleteRequest(InMemoryInterceptedDeleteRequest request) throws LDAPException {
+			if ( request.getRequest().hasControl(TreeDeleteControl.OID) ) {
+				treeDeleteCount.incrementAndGet();
+				if ( request.getRequest().getDN().contains(refusedDn) ) {
+					throw new LDAPException(resultCode, "Tree delete refused.");
+				}
+			}
+		}
+		
+		public int getTreeDeleteCount() {
+			return treeDeleteCount.get();
+		}
+	}
+	
+	private Person newPerson(String dn, String sn) {
+		Person person = new Person(new DistinguishedName(dn).getValue("cn"), sn);
+		person.setDn(dn);
+		return person;
+	}
+}
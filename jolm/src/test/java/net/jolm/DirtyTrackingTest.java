@@ -0,0 +1,69 @@
+package net.jolm;
+
+import static org.junit.Assert.*;
+
+import net.jolm.fixture.InMemoryLdapServer;
+import net.jolm.fixture.mappers.TrackedPersonMapper;
+import net.jolm.fixture.types.TrackedPerson;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DirtyTrackingTest {
+	private InMemoryLdapServer server = new InMemoryLdapServer();
+	private JolmLdapTemplate template;
+	
+	@Before public void setUp() throws Exception {
+		server.start();
+		server.addPeople(2);
+		template = server.createJolmLdapTemplate();
+	}
+	
+	@After public void tearDown() {
+		server.stop();
+	}
+	
+	@Test public void check_only_dirty_attributes_are_mapped() {
+		TrackedPerson person = (TrackedPerson)template.get("cn=person1,ou=people", TrackedPerson.class);
+		assertFalse(person.hasDirtyAttributes());
+		
+		person.setSn("changed");
+		BlindModificationContext context = new BlindModificationContext();
+		new TrackedPersonMapper().mapToContext(person, context);
+		assertEquals(1, context.getModificationItems().length);
+		assertEquals("sn", context.getModificationItems()[0].getAttribute().getID());
+	}
+	
+	@Test public void check_modify_clears_dirty_attributes() {
+		template.setBlindModify(true);
+		TrackedPerson person = (TrackedPerson)template.get("cn=person1,ou=people", TrackedPerson.class);
+		person.setSn("changed");
+		template.modify(person);
+		assertFalse(person.hasDirtyAttributes());
+		
+		TrackedPerson result = (TrackedPerson)template.get("cn=person1,ou=people", TrackedPerson.class);
+		assertEquals("changed", result.getSn());
+		assertNotNull(result.getDescription());
+	}
+	
+	@Test public void check_create_maps_all_attributes() {
+		TrackedPerson person = new TrackedPerson("john", "doe");
+		person.clearDirtyAttributes();
+		template.create(InMemoryLdapServer.PEOPLE, person);
+		assertEquals("doe", ((TrackedPerson)template.get("cn=john,ou=people", TrackedPerson.class)).getSn());
+	}
+	
+	@Test public void check_constructor_marks_required_attributes_dirty() {
+		TrackedPerson person = new TrackedPerson("person1", "changed");
+		assertTrue(person.isCnDirty());
+		assertTrue(person.isSnDirty());
+		assertFalse(person.isDescriptionDirty());
+		
+		template.setBlindModify(true);
+		template.modify(InMemoryLdapServer.PEOPLE, person);
+		TrackedPerson result = (TrackedPerson)template.get("cn=person1,ou=people", TrackedPerson.class);
+		assertEquals("changed", result.getSn());
+		assertNotNull(result.getDescription());
+	}
+}
@@ -0,0 +1,91 @@
+package net.jolm;
+
+import static org.junit.Assert.*;
+
+import net.jolm.fixture.mappers.PersonMapper;
+import net.jolm.fixture.types.Person;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.ldap.core.LdapTemplate;
+
+/**
+ * Compares the example filters of a generated {@code ExampleFilterMapper} with the ones
+ * built from the properties of the example, for mappers that do not implement it.
+ */
+public class ExampleFilterTest {
+	private JolmLdapTemplate generatedTemplate;
+	private JolmLdapTemplate reflectiveTemplate;
+
+	@Before public void setUp() {
+		generatedTemplate = new JolmLdapTemplate(new LdapTemplate());
+		generatedTemplate.setContextMappersPackage("net.jolm.fixture.mappers");
+		reflectiveTemplate = new JolmLdapTemplate(new LdapTemplate());
+		reflectiveTemplate.registerLdapContextMapper(Person.class, new PlainMapper(new PersonMapper()));
+	}
+
+	@Test public void check_generated_mapper_is_used() {
+		assertTrue(generatedTemplate.getContextMapperRegistry().getLdapContextMapper(Person.class) instanceof ExampleFilterMapper);
+		assertFalse(reflectiveTemplate.getContextMapperRegistry().getLdapContextMapper(Person.class) instanceof ExampleFilterMapper);
+	}
+
+	@Test public void check_same_filter_of_single_values() {
+		assertSameFilters(new Person("john", "doe"));
+		assertSameFilters(new Person("john", null));
+		assertSameFilters(new Person(null, "doe"));
+		assertSameFilters(new Person("john", ""));
+	}
+
+	@Test public void check_same_filter_of_multi_values() {
+		// The generated mappers add the attributes in schema order and the properties are
+		// sorted by name, so sn is left out here.
+		Person example = new Person("john", null);
+		example.setDescription(new String[] {"first", "", null, "second"});
+		assertSameFilters(example);
+		assertEquals("(&(cn=john)(description=first)(description=second))",
+				reflectiveTemplate.getExampleFilter(example, false).encode());
+	}
+
+	@Test public void check_same_filter_of_examples() {
+		Person[] examples = new Person[] {new Person("john", null), new Person(null, "doe")};
+		assertEquals(generatedTemplate.getExamplesFilter(examples, false).encode(),
+				reflectiveTemplate.getExamplesFilter(examples, false).encode());
+		assertEquals(generatedTemplate.getExamplesFilter(examples, true).encode(),
+				reflectiveTemplate.getExamplesFilter(examples, true).encode());
+	}
+
+	private void assertSameFilters(Person example) {
+		assertEquals(generatedTemplate.getExampleFilter(example, false).encode(),
+				reflectiveTemplate.getExampleFilter(example, false).encode());
+		assertEquals(generatedTemplate.getExampleFilter(example, true).encode(),
+				reflectiveTemplate.getExampleFilter(example, true).encode());
+	}
+
+	/**
+	 * Delegates to a mapper without exposing its {@code ExampleFilterMapper} methods.
+	 */
+	private static class PlainMapper implements LdapContextMapper {
+		private final LdapContextMapper delegate;
+
+		public PlainMapper(LdapContextMapper delegate) {
+			this.delegate = delegate;
+		}
+
+		public DirContextOperations mapToContext(Object object) {
+			return delegate.mapToContext(object);
+		}
+
+		public void mapToContext(Object object, DirContextOperations context) {
+			delegate.mapToContext(object, context);
+		}
+
+		public Object mapFromContext(Object ctx) {
+			return delegate.mapFromContext(ctx);
+		}
+
+		public void mapFromContext(DirContextOperations ctx, Object resultObject) {
+			delegate.mapFromContext(ctx, resultObject);
+		}
+	}
+}
@@ -0,0 +1,337 @@
+package net.jolm;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.naming.directory.DirContext;
+import javax.naming.directory.ModificationItem;
+
+import net.jolm.fixture.InMemoryLdapServer;
+import net.jolm.fixture.types.OrganizationalUnit;
+import net.jolm.fixture.types.Person;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ldap.NameNotFoundException;
+import org.springframework.ldap.NoSuchAttributeException;
+import org.springframework.ldap.core.DistinguishedName;
+import org.springframework.ldap.core.LdapOperations;
+import org.springframework.ldap.core.LdapTemplate;
+
+public class JolmLdapTemplateTest {
+	private InMemoryLdapServer server = new InMemoryLdapServer();
+	private JolmLdapTemplate template;
+	
+	@Before public void setUp() throws Exception {
+		server.start();
+		server.addPeople(10);
+		template = server.createJolmLdapTemplate();
+	}
+	
+	@After public void tearDown() {
+		server.stop();
+	}
+	
+	@Test public void check_create_and_get() {
+		Person person = new Person("john", "doe");
+		template.create(InMemoryLdapServer.PEOPLE, person);
+		assertEquals(new DistinguishedName("cn=john,ou=people"), new DistinguishedName(person.getDn()));
+		
+		Person result = (Person)template.get("cn=john,ou=people", Person.class);
+		assertEquals("doe", result.getSn());
+	}
+	
+	@Test public void check_get_all() {
+		template.create("cn=person0,ou=people", new Person("child", "doe"));
+		template.setExamplesChunkSize(2);
+		List<String> dns = Arrays.asList("cn=person3,ou=people", "cn=person1,ou=people", "CN=Person3, ou=People",
+				"cn=missing,ou=people", "cn=child,cn=person0,ou=people", "cn=person2,ou=people");
+		Map<String, LdapEntity> result = template.getAll(dns, Person.class);
+		assertEquals(Arrays.asList("cn=person3,ou=people", "cn=person1,ou=people", "cn=child,cn=person0,ou=people",
+				"cn=person2,ou=people"), new ArrayList<String>(result.keySet()));
+		assertEquals("person1", ((Person)result.get("cn=person1,ou=people")).getCn());
+		assertEquals("doe", ((Person)result.get("cn=child,cn=person0,ou=people")).getSn());
+		assertTrue(template.getAll(Arrays.asList("cn=missing,ou=people"), Person.class).isEmpty());
+		assertTrue(template.getAll(Arrays.asList("cn=person1,ou=missing", "cn=person2,ou=missing"), Person.class).isEmpty());
+		
+		result = template.getAll(Arrays.asList("cn=person1,ou=missing", "cn=person2,ou=missing", "cn=person1,ou=people"), Person.class);
+		assertEquals(Arrays.asList("cn=person1,ou=people"), new ArrayList<String>(result.keySet()));
+	}
+	
+	@Test public void check_find() {
+		assertEquals(10, template.find(InMemoryLdapServer.PEOPLE, "(objectclass=person)", Person.class).size());
+		assertEquals(5, template.find(InMemoryLdapServer.PEOPLE, "(sn=odd)", Person.class).size());
+	}
+	
+	@Test public void check_find_polymorphic() {
+		template.create(InMemoryLdapServer.PEOPLE, new OrganizationalUnit("staff"));
+		List<? extends LdapEntity> result = template.findPolymorphic(InMemoryLdapServer.PEOPLE, "(objectclass=*)");
+		assertEquals(12, result.size());
+		int organizationalUnits = 0;
+		for ( LdapEntity entity : result ) {
+			if ( entity instanceof OrganizationalUnit ) {
+				organizationalUnits++;
+			} else {
+				assertEquals(Person.class, entity.getClass());
+			}
+		}
+		assertEquals(2, organizationalUnits);
+		
+		assertEquals(5, template.findPolymorphic("", "(sn=odd)", new String[] {"cn"}).size());
+	}
+	
+	@Test public void check_find_by_example() {
+		Person example = new Person();
+		example.setSn("even");
+		assertEquals(5, template.findByExample(InMemoryLdapServer.PEOPLE, example).size());
+		
+		example.setCn("person2");
+		List<? extends LdapEntity> result = template.findByExample(InMemoryLdapServer.PEOPLE, example, new String[] {"sn"});
+		assertEquals(1, result.size());
+		assertNull(((Person)result.get(0)).getDescription());
+	}
+	
+	@Test public void check_find_by_examples() {
+		assertEquals(2, template.findByExamples(InMemoryLdapServer.PEOPLE, new LdapEntity[] {new Person("person1", null), new Person("person2", null)}).size());
+	}
+	
+	@Test public void check_find_by_examples_in_chunks() {
+		template.setExamplesChunkSize(2);
+		LdapEntity[] examples = new LdapEntity[7];
+		for ( int i = 0; i < 6; i++ ) {
+			examples[i] = new Person("person" + i, null);
+		}
+		examples[6] = new Person(null, "odd");
+		assertEquals(8, template.findByExamples(InMemoryLdapServer.PEOPLE, examples).size());
+	}
+	
+	@Test public void check_list_children() {
+		assertEquals(10, template.listChildren(InMemoryLdapServer.PEOPLE, Person.class).size());
+		
+		List<? extends LdapEntity> result = template.listChildren(InMemoryLdapServer.PEOPLE, Person.class, new String[] {"cn"});
+		assertEquals(10, result.size());
+		Person person = (Person)result.get(0);
+		assertNotNull(person.getCn());
+		assertNull(person.getSn());
+		assertEquals(new DistinguishedName("cn=" + person.getCn() + ",ou=people"), new DistinguishedName(person.getDn()));
+	}
+	
+	@Test public void check_list_children_without_rdn_attribute() {
+		List<? extends LdapEntity> result = template.listChildren(InMemoryLdapServer.PEOPLE, Person.class, new String[] {"sn"});
+		assertEquals(10, result.size());
+		for ( LdapEntity entity : result ) {
+			Person person = (Person)entity;
+			assertNull(person.getCn());
+			assertNotNull(person.getSn());
+			DistinguishedName dn = new DistinguishedName(person.getDn());
+			assertTrue(person.getDn(), dn.getValue("cn").startsWith("person"));
+			assertEquals("people", dn.getValue("ou"));
+		}
+	}
+	
+	@Test public void check_for_each() {
+		final List<LdapEntity> result = new ArrayList<LdapEntity>();
+		template.forEach(InMemoryLdapServer.PEOPLE, "(sn=odd)", Person.class, new LdapEntityCallbackHandler() {
+			public void handleLdapEntity(LdapEntity entity) {
+				result.add(entity);
+			}
+		});
+		assertEquals(5, result.size());
+	}
+	
+	@Test public void check_iterate() {
+		LdapEntityIterator iterator = template.iterate("", "(objectclass=*)", new String[] {"cn"}, Person.class);
+		int count = 0;
+		try {
+			while ( iterator.hasNext() ) {
+				assertTrue(iterator.next() instanceof Person);
+				count++;
+			}
+		} finally {
+			iterator.close();
+		}
+		assertEquals(10, count);
+	}
+	
+	@Test public void check_load_tree() {
+		template.create(InMemoryLdapServer.PEOPLE, new OrganizationalUnit("staff"));
+		template.create("ou=staff,ou=people", new Person("john", "doe"));
+		
+		OrganizationalUnit people = (OrganizationalUnit)template.loadTree(InMemoryLdapServer.PEOPLE, OrganizationalUnit.class, -1);
+		assertEquals("people", people.getOu());
+		assertEquals(10, people.getPersons().length);
+		assertEquals(1, people.getOrganizationalUnits().length);
+		OrganizationalUnit staff = people.getOrganizationalUnits()[0];
+		assertEquals(new DistinguishedName("ou=staff,ou=people"), new DistinguishedName(staff.getDn()));
+		assertEquals("doe", staff.getPersons()[0].getSn());
+		assertNull(staff.getOrganizationalUnits());
+		
+		people = (OrganizationalUnit)template.loadTree(InMemoryLdapServer.PEOPLE, OrganizationalUnit.class, 1);
+		assertEquals(10, people.getPersons().length);
+		assertNull(people.getOrganizationalUnits()[0].getPersons());
+		
+		people = (OrganizationalUnit)template.loadTree(InMemoryLdapServer.PEOPLE, OrganizationalUnit.class, 0);
+		assertEquals("people", people.getOu());
+		assertNull(people.getPersons());
+		
+		//The entries below the depth are dropped while the subtree is searched.
+		template.create("ou=staff,ou=people", new OrganizationalUnit("team"));
+		template.create("ou=team,ou=staff,ou=people", new Person("jane", "doe"));
+		people = (OrganizationalUnit)template.loadTree(InMemoryLdapServer.PEOPLE, OrganizationalUnit.class, 2);
+		staff = people.getOrganizationalUnits()[0];
+		assertEquals(1, staff.getPersons().length);
+		assertNull(staff.getOrganizationalUnits()[0].getPersons());
+		
+		assertNull(template.loadTree(InMemoryLdapServer.PEOPLE, Person.class, -1));
+		assertNull(template.loadTree(InMemoryLdapServer.PEOPLE, Person.class, 1));
+	}
+	
+	@Test public void check_blind_modify() {
+		template.setBlindModify(true);
+		Person person = new Person("person1", "changed");
+		person.setDn("cn=person1,ou=people");
+		person.setDescription(Null.STRING_ARRAY);
+		person.setUserPassword(Null.BYTEARRAY);
+		template.modify(person);
+		
+		Person result = (Person)template.get("cn=person1,ou=people", Person.class);
+		assertEquals("changed", result.getSn());
+		assertNull(result.getDescription());
+	}
+	
+	@Test public void check_modify_changes() throws Exception {
+		final List<ModificationItem> modificationItems = new ArrayList<ModificationItem>();
+		final LdapOperations ldapOperations = new LdapTemplate(server.getContextSource());
+		JolmLdapTemplate recordingTemplate = new JolmLdapTemplate((LdapOperations)Proxy.newProxyInstance(
+				getClass().getClassLoader(), new Class<?>[] {LdapOperations.class}, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if ( method.getName().equals("modifyAttributes") && args[1] instanceof ModificationItem[] ) {
+					modificationItems.addAll(Arrays.asList((ModificationItem[])args[1]));
+				}
+				try {
+					return method.invoke(ldapOperations, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}
+		}));
+		recordingTemplate.setContextMappersPackage("net.jolm.fixture.mappers");
+		recordingTemplate.afterPropertiesSet();
+		
+		Person original = (Person)template.get("cn=person1,ou=people", Person.class);
+		Person person = (Person)SerializationUtils.clone(original);
+		person.setSn("changed");
+		person.setDescription(Null.STRING_ARRAY);
+		recordingTemplate.modifyChanges(original, person);
+		
+		Person result = (Person)template.get("cn=person1,ou=people", Person.class);
+		assertEquals("changed", result.getSn());
+		assertNull(result.getDescription());
+		//Only the changed attributes are sent, as removals of the loaded values and additions.
+		assertEquals(3, modificationItems.size());
+		int snIndex = indexOf("sn", modificationItems);
+		assertModificationItem(DirContext.REMOVE_ATTRIBUTE, "sn", "odd", modificationItems.get(snIndex));
+		assertModificationItem(DirContext.ADD_ATTRIBUTE, "sn", "changed", modificationItems.get(snIndex + 1));
+		assertModificationItem(DirContext.REMOVE_ATTRIBUTE, "description", "person number 1", 
+				modificationItems.get(indexOf("description", modificationItems)));
+		
+		//Nothing changed, so nothing is sent to the server.
+		modificationItems.clear();
+		person.setDn("cn=missing,ou=people");
+		recordingTemplate.modifyChanges(result, person);
+		assertTrue(modificationItems.isEmpty());
+	}
+	
+	@Test public void check_modify_changes_fails_on_concurrent_change() {
+		Person original = (Person)template.get("cn=person1,ou=people", Person.class);
+		Person concurrent = (Person)SerializationUtils.clone(original);
+		concurrent.setSn("theirs");
+		template.modify(concurrent);
+		
+		Person person = (Person)SerializationUtils.clone(original);
+		person.setSn("mine");
+		try {
+			template.modifyChanges(original, person);
+			fail("The attribute changed since the original was loaded.");
+		} catch (NoSuchAttributeException expected) {
+		}
+		assertEquals("theirs", ((Person)template.get("cn=person1,ou=people", Person.class)).getSn());
+		
+		//Attributes changed by nobody else are still modified.
+		original = (Person)template.get("cn=person1,ou=people", Person.class);
+		person = (Person)SerializationUtils.clone(original);
+		person.setSn("mine");
+		template.modifyChanges(original, person);
+		assertEquals("mine", ((Person)template.get("cn=person1,ou=people", Person.class)).getSn());
+	}
+	
+	private int indexOf(String attributeId, List<ModificationItem> modificationItems) {
+		for ( int i = 0; i < modificationItems.size(); i++ ) {
+			if ( modificationItems.get(i).getAttribute().getID().equals(attributeId) ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	private void assertModificationItem(int modificationOp, String attributeId, Object value, ModificationItem modificationItem) throws Exception {
+		assertEquals(modificationOp, modificationItem.getModificationOp());
+		assertEquals(attributeId, modificationItem.getAttribute().getID());
+		assertEquals(1, modificationItem.getAttribute().size());
+		assertEquals(value, modificationItem.getAttribute().get());
+	}
+	
+	@Test public void check_modify() {
+		Person person = (Person)template.get("cn=person1,ou=people", Person.class);
+		person.setSn("changed");
+		person.setDescription(Null.STRING_ARRAY);
+		template.modify(person);
+		
+		Person result = (Person)template.get("cn=person1,ou=people", Person.class);
+		assertEquals("changed", result.getSn());
+		assertNull(result.getDescription());
+	}
+	
+	@Test(expected = NameNotFoundException.class) 
+	public void check_delete() {
+		template.delete("cn=person1,ou=people");
+		template.get("cn=person1,ou=people", Person.class);
+	}
+	
+	@Test(expected = NameNotFoundException.class) 
+	public void check_delete_recursively() {
+		template.deleteRecursively(InMemoryLdapServer.PEOPLE);
+		template.get("cn=person1,ou=people", Person.class);
+	}
+	
+	@Test(expected = NameNotFoundException.class) 
+	public void check_delete_missing() {
+		template.delete("cn=missing,ou=people");
+	}
+	
+	@Test public void check_delete_missing_without_strict_delete() {
+		template.setStrictDelete(false);
+		template.delete("cn=missing,ou=people");
+		template.setTreeDelete(false);
+		template.deleteRecursively("ou=missing");
+		template.delete("cn=person1,ou=people");
+		assertEquals(9, template.listChildren(InMemoryLdapServer.PEOPLE, Person.class).size());
+	}
+	
+	@Test public void check_delete_recursively_without_tree_delete() {
+		template.setTreeDelete(false);
+		template.create("cn=person0,ou=people", new Person("child", "doe"));
+		template.deleteRecursively(InMemoryLdapServer.PEOPLE);
+		assertTrue(template.find("", "(objectclass=person)", Person.class).isEmpty());
+	}
+}
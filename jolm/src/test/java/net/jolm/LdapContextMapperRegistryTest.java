@@ -0,0 +1,63 @@
+package net.jolm;
+
+import static org.junit.Assert.*;
+
+import net.jolm.fixture.mappers.OrganizationalUnitMapper;
+import net.jolm.fixture.mappers.PersonMapper;
+import net.jolm.fixture.mappers.TrackedPersonMapper;
+import net.jolm.fixture.types.OrganizationalUnit;
+import net.jolm.fixture.types.Person;
+import net.jolm.fixture.types.TrackedPerson;
+
+import org.junit.Test;
+
+public class LdapContextMapperRegistryTest {
+	private LdapContextMapperRegistry registry = new LdapContextMapperRegistry("net.jolm.fixture.mappers");
+	
+	@Test public void check_mapper_is_cached() {
+		LdapContextMapper first = registry.getLdapContextMapper(Person.class);
+		LdapContextMapper second = registry.getLdapContextMapper(Person.class);
+		assertTrue(first instanceof PersonMapper);
+		assertSame(first, second);
+		assertEquals(1, registry.getMissCount());
+		assertEquals(1, registry.getHitCount());
+	}
+	
+	@Test public void check_registered_mapper() {
+		PersonMapper mapper = new PersonMapper();
+		registry.register(Person.class, mapper);
+		assertSame(mapper, registry.getLdapContextMapper(Person.class));
+		assertEquals(0, registry.getMissCount());
+	}
+	
+	@Test public void check_preload() {
+		assertEquals(3, registry.preload());
+		assertEquals(OrganizationalUnitMapper.class, registry.getLdapContextMapper(OrganizationalUnit.class).getClass());
+		assertEquals(PersonMapper.class, registry.getLdapContextMapper(Person.class).getClass());
+		assertEquals(TrackedPersonMapper.class, registry.getLdapContextMapper(TrackedPerson.class).getClass());
+		assertEquals(0, registry.getMissCount());
+		assertEquals(3, registry.getHitCount());
+	}
+	
+	@Test public void check_mapper_by_object_classes() {
+		assertTrue(registry.getLdapContextMapper(new String[] {"top", "organizationalUnit"}) instanceof OrganizationalUnitMapper);
+		assertTrue(registry.getLdapContextMapper(new String[] {"PERSON"}) instanceof PersonMapper);
+		assertNull(registry.getLdapContextMapper(new String[] {"top", "domain"}));
+		assertNull(registry.getLdapContextMapper(new String[0]));
+	}
+	
+	@Test public void check_mapper_by_object_classes_without_index() {
+		LdapContextMapperRegistry registry = new LdapContextMapperRegistry();
+		assertNull(registry.getLdapEntityClass(new String[] {"person"}));
+		
+		TrackedPersonMapper mapper = new TrackedPersonMapper();
+		registry.register(TrackedPerson.class, mapper);
+		assertEquals(TrackedPerson.class, registry.getLdapEntityClass(new String[] {"top", "person"}));
+		assertSame(mapper, registry.getLdapContextMapper(new String[] {"top", "person"}));
+	}
+	
+	@Test(expected = RuntimeException.class)
+	public void check_missing_mapper() {
+		new LdapContextMapperRegistry("net.jolm.missing").getLdapContextMapper(Person.class);
+	}
+}
@@ -0,0 +1,42 @@
+package net.jolm;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import net.jolm.fixture.types.Person;
+
+import org.junit.Test;
+
+public class LdapEntityPropertiesTest {
+	@Test public void check_properties_are_cached() {
+		LdapContextMapperRegistry registry = new LdapContextMapperRegistry();
+		assertSame(registry.getLdapEntityProperties(Person.class), registry.getLdapEntityProperties(Person.class));
+		assertNotSame(registry.getLdapEntityProperties(Person.class), new LdapContextMapperRegistry().getLdapEntityProperties(Person.class));
+	}
+	
+	@Test public void check_filterable_properties() {
+		Set<String> names = new HashSet<String>();
+		for ( LdapEntityProperties.Property property : LdapEntityProperties.forClass(Person.class).getFilterableProperties() ) {
+			names.add(property.getName());
+		}
+		assertEquals(3, names.size());
+		assertTrue(names.contains("cn"));
+		assertTrue(names.contains("sn"));
+		assertTrue(names.contains("description"));
+	}
+	
+	@Test public void check_get_value() {
+		Person person = new Person("john", "doe");
+		for ( LdapEntityProperties.Property property : LdapEntityProperties.forClass(Person.class).getFilterableProperties() ) {
+			if ( property.getName().equals("sn") ) {
+				assertEquals("doe", property.getValue(person));
+				assertFalse(property.isMultiValues());
+			} else if ( property.getName().equals("description") ) {
+				assertNull(property.getValue(person));
+				assertTrue(property.isMultiValues());
+			}
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package net.jolm;
+
+import static org.junit.Assert.*;
+
+import net.jolm.fixture.InMemoryLdapServer;
+import net.jolm.fixture.types.OrganizationalUnit;
+import net.jolm.fixture.types.Person;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ldap.LimitExceededException;
+
+public class ObjectClassFilterTest {
+	private InMemoryLdapServer server = new InMemoryLdapServer();
+	private JolmLdapTemplate template;
+	
+	@Before public void setUp() throws Exception {
+		//ou=people and its 10 people don't fit in the size limit together.
+		server.setMaxSizeLimit(10);
+		server.start();
+		server.addPeople(10);
+		template = server.createJolmLdapTemplate();
+	}
+	
+	@After public void tearDown() {
+		server.stop();
+	}
+	
+	@Test public void check_object_class_is_filtered_by_server() {
+		assertEquals(10, template.find(InMemoryLdapServer.PEOPLE, "(objectclass=*)", Person.class).size());
+		assertEquals(5, template.find(InMemoryLdapServer.PEOPLE, "sn=odd", Person.class).size());
+		assertEquals(1, template.find(InMemoryLdapServer.PEOPLE, "(&(objectClass=person)(cn=person1))", Person.class).size());
+	}
+	
+	@Test public void check_object_class_is_filtered_when_tested_in_the_filter() {
+		template.create(InMemoryLdapServer.PEOPLE, new OrganizationalUnit("staff"));
+		assertEquals(0, template.find(InMemoryLdapServer.PEOPLE, "(!(objectClass=person))", Person.class).size());
+		assertEquals(10, template.find(InMemoryLdapServer.PEOPLE, "(|(objectClass=person)(ou=staff))", Person.class).size());
+		assertEquals(10, template.find(InMemoryLdapServer.PEOPLE, "(objectClass=Person)", Person.class).size());
+	}
+	
+	@Test(expected = LimitExceededException.class)
+	public void check_object_class_filter_disabled() {
+		template.setObjectClassFilter(false);
+		template.find(InMemoryLdapServer.PEOPLE, "(objectclass=*)", Person.class);
+	}
+}
@@ -0,0 +1,55 @@
+package net.jolm;
+
+import static org.junit.Assert.*;
+
+import net.jolm.fixture.InMemoryLdapServer;
+import net.jolm.fixture.types.Person;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ldap.LimitExceededException;
+
+public class PagedResultsTest {
+	private InMemoryLdapServer server = new InMemoryLdapServer();
+	private JolmLdapTemplate template;
+	
+	@Before public void setUp() throws Exception {
+		server.setMaxSizeLimit(10);
+		server.start();
+		server.addPeople(25);
+		template = server.createJolmLdapTemplate();
+	}
+	
+	@After public void tearDown() {
+		server.stop();
+	}
+	
+	@Test(expected = LimitExceededException.class)
+	public void check_size_limit_without_paging() {
+		template.find(InMemoryLdapServer.PEOPLE, "(objectclass=person)", Person.class);
+	}
+	
+	@Test public void check_find_with_page_size() {
+		assertEquals(25, template.find(InMemoryLdapServer.PEOPLE, "(objectclass=person)", null, Person.class, 10).size());
+	}
+	
+	@Test public void check_default_page_size() {
+		template.setPageSize(7);
+		Person example = new Person();
+		example.setSn("odd");
+		assertEquals(12, template.findByExample(InMemoryLdapServer.PEOPLE, example).size());
+		assertEquals(25, template.listChildren(InMemoryLdapServer.PEOPLE, Person.class).size());
+		assertEquals(25, template.listChildren(InMemoryLdapServer.PEOPLE, Person.class, new String[] {"cn"}).size());
+	}
+	
+	@Test public void check_for_each_with_page_size() {
+		final int[] count = new int[1];
+		template.forEach(InMemoryLdapServer.PEOPLE, "(objectclass=person)", new String[] {"cn"}, Person.class, new LdapEntityCallbackHandler() {
+			public void handleLdapEntity(LdapEntity entity) {
+				count[0]++;
+			}
+		}, 4);
+		assertEquals(25, count[0]);
+	}
+}
@@ -0,0 +1,82 @@
+package net.jolm;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import net.jolm.fixture.InMemoryLdapServer;
+import net.jolm.fixture.types.Person;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SlowQueryLogTest {
+	private InMemoryLdapServer server = new InMemoryLdapServer();
+	private JolmLdapTemplate template;
+	private Logger logger = Logger.getLogger("net.jolm.JolmLdapTemplate.slowQuery");
+	private final List<String> messages = new ArrayList<String>();
+	private Handler handler = new Handler() {
+		public void publish(LogRecord record) {
+			messages.add(record.getMessage());
+		}
+		
+		public void flush() {
+		}
+		
+		public void close() {
+		}
+	};
+	
+	@Before public void setUp() throws Exception {
+		server.start();
+		server.addPeople(4);
+		template = server.createJolmLdapTemplate();
+		logger.addHandler(handler);
+	}
+	
+	@After public void tearDown() {
+		logger.removeHandler(handler);
+		server.stop();
+	}
+	
+	@Test public void check_slow_searches_are_logged() {
+		template.setSlowQueryThresholdInMs(0);
+		template.find(InMemoryLdapServer.PEOPLE, "(sn=odd)", new String[] {"cn"}, Person.class);
+		assertEquals(1, messages.size());
+		String message = messages.get(0);
+		assertTrue(message, message.startsWith("Search took "));
+		assertTrue(message, message.contains("base=ou=people, scope=subtree, filter=(&(objectclass=person)(sn=odd))"));
+		assertTrue(message, message.contains("attributes=[cn, objectClass]"));
+		//Two entries with a cn and an object class each.
+		assertTrue(message, message.contains("entries=2, values=4, bytes=26"));
+	}
+	
+	@Test public void check_bytes_are_utf8_encoded() {
+		template.create(InMemoryLdapServer.PEOPLE, new Person("j\u00f6rg", "umlaut"));
+		template.setSlowQueryThresholdInMs(0);
+		template.find(InMemoryLdapServer.PEOPLE, "(sn=umlaut)", new String[] {"cn"}, Person.class);
+		//A two byte character in the cn, plus the object class.
+		assertTrue(messages.get(0), messages.get(0).contains("entries=1, values=2, bytes=11"));
+	}
+	
+	@Test public void check_delete_subtree_requests_no_attributes() {
+		template.setSlowQueryThresholdInMs(0);
+		template.deleteSubtree(InMemoryLdapServer.PEOPLE, null);
+		String message = messages.get(0);
+		assertTrue(message, message.contains("attributes=[1.1]"));
+		//The people and their parent, without any attribute values.
+		assertTrue(message, message.contains("entries=5, values=0, bytes=0"));
+	}
+	
+	@Test public void check_fast_searches_are_not_logged() {
+		template.find(InMemoryLdapServer.PEOPLE, "(sn=odd)", Person.class);
+		template.setSlowQueryThresholdInMs(60000);
+		template.find(InMemoryLdapServer.PEOPLE, "(sn=odd)", Person.class);
+		assertTrue(messages.isEmpty());
+	}
+}
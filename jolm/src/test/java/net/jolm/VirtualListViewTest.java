@@ -0,0 +1,54 @@
+package net.jolm;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import net.jolm.fixture.InMemoryLdapServer;
+import net.jolm.fixture.types.Person;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class VirtualListViewTest {
+	private InMemoryLdapServer server = new InMemoryLdapServer();
+	private JolmLdapTemplate template;
+	
+	@Before public void setUp() throws Exception {
+		server.start();
+		server.addPeople(25);
+		template = server.createJolmLdapTemplate();
+	}
+	
+	@After public void tearDown() {
+		server.stop();
+	}
+	
+	@Test public void check_find_sorted() {
+		List<? extends LdapEntity> people = template.findSorted(InMemoryLdapServer.PEOPLE, "(objectclass=person)", null, Person.class, "cn", false);
+		assertEquals(25, people.size());
+		assertEquals("person9", ((Person)people.get(0)).getCn());
+		assertEquals("person0", ((Person)people.get(24)).getCn());
+	}
+	
+	@Test public void check_find_page() {
+		LdapEntityPage page = template.findPage(InMemoryLdapServer.PEOPLE, "(objectclass=person)", new String[] {"cn"}, Person.class, "cn", true, 2, 3);
+		assertEquals(2, page.getOffset());
+		assertEquals(25, page.getTotalCount());
+		assertEquals(3, page.getEntities().size());
+		assertEquals("person10", ((Person)page.getEntities().get(0)).getCn());
+		assertEquals("person12", ((Person)page.getEntities().get(2)).getCn());
+	}
+	
+	@Test public void check_find_last_page() {
+		LdapEntityPage page = template.findPage(InMemoryLdapServer.PEOPLE, "(objectclass=person)", null, Person.class, "cn", true, 20, 10);
+		assertEquals(5, page.getEntities().size());
+		assertEquals("person9", ((Person)page.getEntities().get(4)).getCn());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void check_find_page_with_invalid_count() {
+		template.findPage(InMemoryLdapServer.PEOPLE, "(objectclass=person)", null, Person.class, "cn", true, 0, 0);
+	}
+}
@@ -0,0 +1,160 @@
+package net.jolm.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import net.jolm.JolmLdapTemplate;
+import net.jolm.LdapEntity;
+import net.jolm.fixture.InMemoryLdapServer;
+import net.jolm.fixture.types.Person;
+import net.jolm.fixture.types.TrackedPerson;
+import net.jolm.metrics.InMemoryLdapMetrics;
+import net.jolm.metrics.LdapMetrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ldap.NameNotFoundException;
+
+public class CachingJolmLdapOperationsTest {
+	private InMemoryLdapServer server = new InMemoryLdapServer();
+	private LdapEntityCache cache = new LdapEntityCache(60000, 3);
+	private LdapQueryCache queryCache = new LdapQueryCache();
+	private CachingJolmLdapOperations operations;
+	
+	@Before public void setUp() throws Exception {
+		server.start();
+		server.addPeople(5);
+		operations = new CachingJolmLdapOperations(server.createJolmLdapTemplate(), cache);
+		operations.setQueryCache(queryCache);
+	}
+	
+	@After public void tearDown() {
+		server.stop();
+	}
+	
+	@Test public void check_read_through() {
+		Person person = (Person)operations.get("cn=person1,ou=people", Person.class);
+		assertEquals(person.getDn(), operations.get("CN=Person1, ou=People", Person.class).getDn());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+	
+	@Test public void check_cached_entities_are_copied() {
+		Person person = (Person)operations.get("cn=person1,ou=people", Person.class);
+		person.setSn("changed");
+		Person cached = (Person)operations.get("cn=person1,ou=people", Person.class);
+		assertNotSame(person, cached);
+		assertFalse("changed".equals(cached.getSn()));
+		cached.setSn("changed");
+		assertFalse("changed".equals(((Person)operations.get("cn=person1,ou=people", Person.class)).getSn()));
+		assertEquals(2, cache.getHitCount());
+		
+		Person example = new Person();
+		example.setSn("odd");
+		List<? extends LdapEntity> result = operations.findByExample(InMemoryLdapServer.PEOPLE, example);
+		((Person)result.get(0)).setSn("changed");
+		assertEquals("odd", ((Person)operations.findByExample(InMemoryLdapServer.PEOPLE, example).get(0)).getSn());
+		assertEquals(1, queryCache.getHitCount());
+	}
+	
+	@Test public void check_entity_classes_are_cached_separately() {
+		Person person = (Person)operations.get("cn=person1,ou=people", Person.class);
+		TrackedPerson trackedPerson = (TrackedPerson)operations.get("cn=person1,ou=people", TrackedPerson.class);
+		assertEquals(person.getDn(), operations.get("cn=person1,ou=people", Person.class).getDn());
+		assertEquals(trackedPerson.getDn(), operations.get("cn=person1,ou=people", TrackedPerson.class).getDn());
+		assertEquals(2, cache.getHitCount());
+		assertEquals(2, cache.size());
+		
+		operations.modify(InMemoryLdapServer.PEOPLE, new Person("person1", "changed"));
+		assertEquals(0, cache.size());
+		assertEquals("changed", ((TrackedPerson)operations.get("cn=person1,ou=people", TrackedPerson.class)).getSn());
+	}
+	
+	@Test public void check_modify_invalidates() {
+		operations.get("cn=person1,ou=people", Person.class);
+		Person person = new Person("person1", "changed");
+		operations.modify(InMemoryLdapServer.PEOPLE, person);
+		assertEquals("changed", ((Person)operations.get("cn=person1,ou=people", Person.class)).getSn());
+	}
+	
+	@Test(expected = NameNotFoundException.class)
+	public void check_delete_invalidates() {
+		operations.get("cn=person1,ou=people", Person.class);
+		operations.delete("cn=person1,ou=people");
+		operations.get("cn=person1,ou=people", Person.class);
+	}
+	
+	@Test public void check_delete_recursively_invalidates_subtree() {
+		operations.get("cn=person1,ou=people", Person.class);
+		operations.get("cn=person2,ou=people", Person.class);
+		operations.deleteRecursively(InMemoryLdapServer.PEOPLE);
+		assertEquals(0, cache.size());
+	}
+	
+	@Test public void check_max_size() {
+		for ( int i = 0; i < 5; i++ ) {
+			operations.get("cn=person" + i + ",ou=people", Person.class);
+		}
+		assertEquals(3, cache.size());
+		assertNull(cache.get("cn=person0,ou=people", Person.class));
+		assertNotNull(cache.get("cn=person4,ou=people", Person.class));
+	}
+	
+	@Test public void check_stale_load_is_not_cached() {
+		long generation = cache.getGeneration();
+		Person person = (Person)operations.getJolmLdapOperations().get("cn=person1,ou=people", Person.class);
+		cache.invalidate("cn=person1,ou=people");
+		cache.put(person.getDn(), Person.class, person, generation);
+		assertEquals(0, cache.size());
+	}
+	
+	@Test public void check_time_to_live() throws Exception {
+		cache.setTimeToLiveInMs(1);
+		operations.get("cn=person1,ou=people", Person.class);
+		Thread.sleep(5);
+		assertNull(cache.get("cn=person1,ou=people", Person.class));
+	}
+	
+	@Test public void check_query_cache() {
+		Person example = new Person();
+		example.setSn("odd");
+		List<? extends LdapEntity> result = operations.findByExample(InMemoryLdapServer.PEOPLE, example);
+		assertEquals(2, result.size());
+		assertEquals(2, operations.find("OU=People", "(sn=odd)", Person.class).size());
+		assertEquals(2, operations.findByExample(InMemoryLdapServer.PEOPLE, example).size());
+		assertEquals(2, queryCache.getHitCount());
+		assertEquals(1, queryCache.getMissCount());
+		
+		operations.create(InMemoryLdapServer.PEOPLE, new Person("john", "odd"));
+		assertEquals(0, queryCache.size());
+		assertEquals(3, operations.findByExample(InMemoryLdapServer.PEOPLE, example).size());
+	}
+	
+	@Test public void check_query_cache_of_examples_in_chunks() {
+		JolmLdapTemplate template = (JolmLdapTemplate)operations.getJolmLdapOperations();
+		InMemoryLdapMetrics metrics = new InMemoryLdapMetrics();
+		template.setMetrics(metrics);
+		template.setExamplesChunkSize(2);
+		LdapEntity[] examples = new LdapEntity[5];
+		for ( int i = 0; i < examples.length; i++ ) {
+			examples[i] = new Person("person" + i, null);
+		}
+		List<? extends LdapEntity> result = operations.findByExamples(InMemoryLdapServer.PEOPLE, examples);
+		assertEquals(5, result.size());
+		assertEquals(5, operations.findByExamples(InMemoryLdapServer.PEOPLE, examples).size());
+		assertEquals(1, queryCache.getHitCount());
+		assertEquals(1, metrics.getStatistics(LdapMetrics.FIND_BY_EXAMPLES).getCount());
+		assertNull(metrics.getStatistics(LdapMetrics.FIND));
+	}
+	
+	@Test public void check_query_cache_keeps_unrelated_subtree() {
+		operations.listChildren("cn=person1,ou=people", Person.class);
+		operations.find(InMemoryLdapServer.PEOPLE, "(objectclass=person)", Person.class);
+		operations.delete("cn=person2,ou=people");
+		assertEquals(1, queryCache.size());
+		operations.deleteRecursively("cn=person1,ou=people");
+		assertEquals(0, queryCache.size());
+	}
+}
@@ -0,0 +1,97 @@
+package net.jolm.fixture;
+
+import net.jolm.JolmLdapTemplate;
+
+import org.springframework.ldap.core.support.LdapContextSource;
+
+import com.unboundid.ldap.listener.InMemoryDirectoryServer;
+import com.unboundid.ldap.listener.InMemoryDirectoryServerConfig;
+import com.unboundid.ldap.listener.interceptor.InMemoryOperationInterceptor;
+
+/**
+ * Embedded LDAP server with a small directory tree, used by the tests that need
+ * to talk to a real server:
+ * 
+ * <pre>
+ * dc=jolm,dc=net
+ *    ou=people
+ * </pre>
+ */
+public class InMemoryLdapServer {
+	public static final String BASE = "dc=jolm,dc=net";
+	public static final String PEOPLE = "ou=people";
+	
+	private InMemoryDirectoryServer server;
+	private LdapContextSource contextSource;
+	private int maxSizeLimit;
+	private InMemoryOperationInterceptor operationInterceptor;
+	
+	/**
+	 * Sets the maximum number of entries the server returns for a single search request.
+	 * Must be called before {@link #start()}.
+	 */
+	public void setMaxSizeLimit(int maxSizeLimit) {
+		this.maxSizeLimit = maxSizeLimit;
+	}
+	
+	/**
+	 * Sets an interceptor of the requests, e.g. to reject some of them. Must be called before
+	 * {@link #start()}.
+	 */
+	public void setOperationInterceptor(InMemoryOperationInterceptor operationInterceptor) {
+		this.operationInterceptor = operationInterceptor;
+	}
+	
+	public void start() throws Exception {
+		InMemoryDirectoryServerConfig config = new InMemoryDirectoryServerConfig(BASE);
+		config.addAdditionalBindCredentials("cn=admin", "secret");
+		config.setSchema(null);
+		config.setMaxSizeLimit(maxSizeLimit);
+		if ( operationInterceptor != null ) {
+			config.addInMemoryOperationInterceptor(operationInterceptor);
+		}
+		server = new InMemoryDirectoryServer(config);
+		server.startListening();
+		
+		server.add("dn: " + BASE, "objectClass: top", "objectClass: domain", "dc: jolm");
+		server.add("dn: " + PEOPLE + "," + BASE, "objectClass: top", "objectClass: organizationalUnit", "ou: people");
+		
+		contextSource = new LdapContextSource();
+		contextSource.setUrl("ldap://localhost:" + server.getListenPort());
+		contextSource.setBase(BASE);
+		contextSource.setUserDn("cn=admin");
+		contextSource.setPassword("secret");
+		contextSource.afterPropertiesSet();
+	}
+	
+	public void stop() {
+		if ( server != null ) {
+			server.shutDown(true);
+		}
+	}
+	
+	/**
+	 * Adds {@code count} person entries named person0..person(count-1) under ou=people.
+	 */
+	public void addPeople(int count) throws Exception {
+		for ( int i = 0; i < count; i++ ) {
+			server.add("dn: cn=person" + i + "," + PEOPLE + "," + BASE, "objectClass: person", 
+					"cn: person" + i, "sn: " + (i % 2 == 0 ? "even" : "odd"), "description: person number " + i);
+		}
+	}
+	
+	public InMemoryDirectoryServer getServer() {
+		return server;
+	}
+	
+	public LdapContextSource getContextSource() {
+		return contextSource;
+	}
+	
+	public JolmLdapTemplate createJolmLdapTemplate() throws Exception {
+		JolmLdapTemplate jolmLdapTemplate = new JolmLdapTemplate(contextSource);
+		jolmLdapTemplate.setContextMappersPackage("net.jolm.fixture.mappers");
+		jolmLdapTemplate.afterPropertiesSet();
+		return jolmLdapTemplate;
+	}
+}
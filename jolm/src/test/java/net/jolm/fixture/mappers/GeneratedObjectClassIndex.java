@@ -0,0 +1,28 @@
+package net.jolm.fixture.mappers;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.jolm.LdapEntity;
+import net.jolm.ObjectClassIndex;
+import net.jolm.fixture.types.OrganizationalUnit;
+import net.jolm.fixture.types.Person;
+
+/**
+ * Hand-written equivalent of the object class index generated by maven-jolm-plugin, used in tests.
+ */
+public class GeneratedObjectClassIndex implements ObjectClassIndex {
+	private static final Map<String, Class<? extends LdapEntity>> ENTITY_CLASSES;
+
+	static {
+		Map<String, Class<? extends LdapEntity>> entityClasses = new HashMap<String, Class<? extends LdapEntity>>();
+		entityClasses.put("person", Person.class);
+		entityClasses.put("organizationalunit", OrganizationalUnit.class);
+		ENTITY_CLASSES = Collections.unmodifiableMap(entityClasses);
+	}
+
+	public Map<String, Class<? extends LdapEntity>> getEntityClasses() {
+		return ENTITY_CLASSES;
+	}
+}
@@ -0,0 +1,61 @@
+package net.jolm.fixture.mappers;
+
+import net.jolm.LdapContextMapper;
+import net.jolm.LdapEntity;
+import net.jolm.Null;
+import net.jolm.fixture.types.OrganizationalUnit;
+
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.ldap.core.DirContextOperations;
+
+/**
+ * Hand-written equivalent of a mapper generated by maven-jolm-plugin, used in tests.
+ */
+public class OrganizationalUnitMapper implements LdapContextMapper {
+	public DirContextOperations mapToContext(Object object) {
+		DirContextAdapter context = new DirContextAdapter();
+		context.setAttributeValues("objectclass", ((LdapEntity)object).getObjectClasses());
+		mapToContext(object, context);
+		return context;
+	}
+
+	public void mapToContext(Object object, DirContextOperations context) {
+		OrganizationalUnit organizationalUnit = (OrganizationalUnit)object;
+		setLdapAttribute(context, "ou", organizationalUnit.getOu());
+	}
+
+	public OrganizationalUnit mapFromContext(Object ctx) {
+		DirContextOperations context = (DirContextOperations)ctx;
+		OrganizationalUnit organizationalUnit = new OrganizationalUnit();
+		if ( context.getStringAttributes("objectClass") == null || !arrayContainsIgnoreCase(context.getStringAttributes("objectClass"), organizationalUnit.getObjectClass()) ) {
+			return null;
+		}
+
+		mapFromContext(context, organizationalUnit);
+		if ( context.getDn() != null ) {
+			organizationalUnit.setDn(context.getDn().toString());
+		}
+
+		return organizationalUnit;
+	}
+
+	public void mapFromContext(DirContextOperations context, Object resultObject) {
+		OrganizationalUnit organizationalUnit = (OrganizationalUnit)resultObject;
+		organizationalUnit.setOu((String)context.getStringAttribute("ou"));
+	}
+
+	protected void setLdapAttribute(DirContextOperations context, String ldapAttributeName, Object value) {
+		if (value != null) {
+			context.setAttributeValue(ldapAttributeName, Null.isNullObject(value) ? null : value);
+		}
+	}
+
+	protected boolean arrayContainsIgnoreCase(String[] array, String value) {
+		for ( String item : array ) {
+			if ( item != null && item.equalsIgnoreCase(value) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
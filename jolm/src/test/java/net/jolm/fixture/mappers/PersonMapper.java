@@ -0,0 +1,107 @@
+package net.jolm.fixture.mappers;
+
+import net.jolm.ExampleFilterMapper;
+import net.jolm.LdapEntity;
+import net.jolm.Null;
+import net.jolm.fixture.types.Person;
+
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.ldap.filter.AndFilter;
+import org.springframework.ldap.filter.EqualsFilter;
+import org.springframework.ldap.filter.WhitespaceWildcardsFilter;
+
+/**
+ * Hand-written equivalent of a mapper generated by maven-jolm-plugin, used in tests.
+ */
+public class PersonMapper implements ExampleFilterMapper {
+	public DirContextOperations mapToContext(Object object) {
+		DirContextAdapter context = new DirContextAdapter();
+		context.setAttributeValues("objectclass", ((LdapEntity)object).getObjectClasses());
+		mapToContext(object, context);
+		return context;
+	}
+
+	public void mapToContext(Object object, DirContextOperations context) {
+		Person person = (Person)object;
+		setLdapAttribute(context, "cn", person.getCn());
+		setLdapAttribute(context, "sn", person.getSn());
+		setLdapAttributes(context, "description", person.getDescription());
+		setLdapAttribute(context, "userPassword", person.getUserPassword());
+	}
+
+	public Person mapFromContext(Object ctx) {
+		DirContextOperations context = (DirContextOperations)ctx;
+		Person person = new Person();
+		if ( context.getStringAttributes("objectClass") == null || !arrayContainsIgnoreCase(context.getStringAttributes("objectClass"), person.getObjectClass()) ) {
+			return null;
+		}
+
+		mapFromContext(context, person);
+		if ( context.getDn() != null ) {
+			person.setDn(context.getDn().toString());
+		}
+
+		return person;
+	}
+
+	public void mapFromContext(DirContextOperations context, Object resultObject) {
+		Person person = (Person)resultObject;
+		person.setCn((String)context.getStringAttribute("cn"));
+		person.setSn((String)context.getStringAttribute("sn"));
+		person.setDescription((String[])context.getStringAttributes("description"));
+		person.setUserPassword((byte[])context.getObjectAttribute("userPassword"));
+	}
+
+	public AndFilter toExampleFilter(Object example, boolean wildcardFilters) {
+		AndFilter filter = new AndFilter();
+		toExampleFilter(example, filter, wildcardFilters);
+		return filter;
+	}
+
+	public void toExampleFilter(Object example, AndFilter filter, boolean wildcardFilters) {
+		Person person = (Person)example;
+		addExampleFilter(filter, "cn", person.getCn(), wildcardFilters);
+		addExampleFilter(filter, "sn", person.getSn(), wildcardFilters);
+		addExampleFilters(filter, "description", person.getDescription(), wildcardFilters);
+	}
+
+	protected void setLdapAttribute(DirContextOperations context, String ldapAttributeName, Object value) {
+		if (value != null) {
+			context.setAttributeValue(ldapAttributeName, Null.isNullObject(value) ? null : value);
+		}
+	}
+
+	protected void setLdapAttributes(DirContextOperations context, String ldapAttributeName, Object[] value) {
+		if (value != null) {
+			context.setAttributeValues(ldapAttributeName, Null.isNullObject(value) ? null : value);
+		}
+	}
+
+	protected void addExampleFilter(AndFilter filter, String ldapAttributeName, String value, boolean wildcardFilters) {
+		if (value != null && value.length() > 0) {
+			if (wildcardFilters) {
+				filter.and(new WhitespaceWildcardsFilter(ldapAttributeName, value));
+			} else {
+				filter.and(new EqualsFilter(ldapAttributeName, value));
+			}
+		}
+	}
+
+	protected void addExampleFilters(AndFilter filter, String ldapAttributeName, String[] values, boolean wildcardFilters) {
+		if (values != null) {
+			for (String value : values) {
+				addExampleFilter(filter, ldapAttributeName, value, wildcardFilters);
+			}
+		}
+	}
+
+	protected boolean arrayContainsIgnoreCase(String[] array, String value) {
+		for ( String item : array ) {
+			if ( item != null && item.equalsIgnoreCase(value) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,56 @@
+package net.jolm.fixture.mappers;
+
+import net.jolm.LdapEntity;
+import net.jolm.fixture.types.TrackedPerson;
+
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.ldap.core.DirContextOperations;
+
+/**
+ * Hand-written equivalent of a mapper generated by maven-jolm-plugin with 
+ * {@code trackDirtyAttributes} enabled, used in tests.
+ */
+public class TrackedPersonMapper extends PersonMapper {
+	public DirContextOperations mapToContext(Object object) {
+		DirContextAdapter context = new DirContextAdapter();
+		context.setAttributeValues("objectclass", ((LdapEntity)object).getObjectClasses());
+		mapToContext(object, context, false);
+		return context;
+	}
+
+	public void mapToContext(Object object, DirContextOperations context) {
+		mapToContext(object, context, true);
+	}
+
+	public void mapToContext(Object object, DirContextOperations context, boolean dirtyOnly) {
+		TrackedPerson person = (TrackedPerson)object;
+		if ( !dirtyOnly || person.isCnDirty() ) {
+			setLdapAttribute(context, "cn", person.getCn());
+		}
+		if ( !dirtyOnly || person.isSnDirty() ) {
+			setLdapAttribute(context, "sn", person.getSn());
+		}
+		if ( !dirtyOnly || person.isDescriptionDirty() ) {
+			setLdapAttributes(context, "description", person.getDescription());
+		}
+		if ( !dirtyOnly || person.isUserPasswordDirty() ) {
+			setLdapAttribute(context, "userPassword", person.getUserPassword());
+		}
+	}
+
+	public TrackedPerson mapFromContext(Object ctx) {
+		DirContextOperations context = (DirContextOperations)ctx;
+		TrackedPerson person = new TrackedPerson();
+		if ( context.getStringAttributes("objectClass") == null || !arrayContainsIgnoreCase(context.getStringAttributes("objectClass"), person.getObjectClass()) ) {
+			return null;
+		}
+
+		mapFromContext(context, person);
+		person.clearDirtyAttributes();
+		if ( context.getDn() != null ) {
+			person.setDn(context.getDn().toString());
+		}
+
+		return person;
+	}
+}
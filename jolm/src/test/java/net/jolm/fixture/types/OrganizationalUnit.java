@@ -0,0 +1,82 @@
+package net.jolm.fixture.types;
+
+import net.jolm.LdapEntity;
+
+import org.springframework.ldap.core.DistinguishedName;
+
+/**
+ * Hand-written equivalent of a type generated by maven-jolm-plugin with child object
+ * classes, used in tests.
+ */
+public class OrganizationalUnit implements LdapEntity {
+	private static final long serialVersionUID = 1L;
+
+	public OrganizationalUnit() {
+	}
+
+	public OrganizationalUnit(String ou) {
+		this.ou = ou;
+	}
+
+	public String getObjectClass() {
+		return "organizationalUnit";
+	}
+
+	public String[] getObjectClasses() {
+		return new String[] {"organizationalUnit"};
+	}
+
+	public String getRdn() {
+		return "ou=" + getOu();
+	}
+
+	public String getParentDn() {
+		DistinguishedName distinguishedName = new DistinguishedName(getDn());
+		distinguishedName.removeLast();
+		return distinguishedName.toString();
+	}
+
+	private String dn;
+
+	public String getDn() {
+		return this.dn;
+	}
+
+	public void setDn(String dn) {
+		this.dn = dn;
+	}
+
+	public String[] getChildObjectClasses() {
+		return new String[] {"organizationalUnit", "person"};
+	}
+
+	private String ou;
+
+	public String getOu() {
+		return this.ou;
+	}
+
+	public void setOu(String ou) {
+		this.ou = ou;
+	}
+
+	private OrganizationalUnit[] organizationalUnits;
+
+	public OrganizationalUnit[] getOrganizationalUnits() {
+		return this.organizationalUnits;
+	}
+
+	public void setOrganizationalUnits(OrganizationalUnit[] organizationalUnits) {
+		this.organizationalUnits = organizationalUnits;
+	}
+
+	private Person[] persons;
+
+	public Person[] getPersons() {
+		return this.persons;
+	}
+
+	public void setPersons(Person[] persons) {
+		this.persons = persons;
+	}
+}
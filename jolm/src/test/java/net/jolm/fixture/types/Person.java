@@ -0,0 +1,92 @@
+package net.jolm.fixture.types;
+
+import net.jolm.LdapEntity;
+
+import org.springframework.ldap.core.DistinguishedName;
+
+/**
+ * Hand-written equivalent of a type generated by maven-jolm-plugin, used in tests.
+ */
+public class Person implements LdapEntity {
+	private static final long serialVersionUID = 1L;
+
+	public Person() {
+	}
+
+	public Person(String cn, String sn) {
+		this.cn = cn;
+		this.sn = sn;
+	}
+
+	public String getObjectClass() {
+		return "person";
+	}
+
+	public String[] getObjectClasses() {
+		return new String[] {"person"};
+	}
+
+	public String getRdn() {
+		return "cn=" + getCn();
+	}
+
+	public String getParentDn() {
+		DistinguishedName distinguishedName = new DistinguishedName(getDn());
+		distinguishedName.removeLast();
+		return distinguishedName.toString();
+	}
+
+	private String dn;
+
+	public String getDn() {
+		return this.dn;
+	}
+
+	public void setDn(String dn) {
+		this.dn = dn;
+	}
+
+	public String[] getChildObjectClasses() {
+		return new String[] {};
+	}
+
+	private String cn;
+
+	public String getCn() {
+		return this.cn;
+	}
+
+	public void setCn(String cn) {
+		this.cn = cn;
+	}
+
+	private String sn;
+
+	public String getSn() {
+		return this.sn;
+	}
+
+	public void setSn(String sn) {
+		this.sn = sn;
+	}
+
+	private String[] description;
+
+	public String[] getDescription() {
+		return this.description;
+	}
+
+	public void setDescription(String[] description) {
+		this.description = description;
+	}
+
+	private byte[] userPassword;
+
+	public byte[] getUserPassword() {
+		return this.userPassword;
+	}
+
+	public void setUserPassword(byte[] userPassword) {
+		this.userPassword = userPassword;
+	}
+}
@@ -0,0 +1,68 @@
+package net.jolm.fixture.types;
+
+import java.util.BitSet;
+
+import net.jolm.DirtyTrackingLdapEntity;
+
+/**
+ * Hand-written equivalent of a type generated by maven-jolm-plugin with 
+ * {@code trackDirtyAttributes} enabled, used in tests.
+ */
+public class TrackedPerson extends Person implements DirtyTrackingLdapEntity {
+	private static final long serialVersionUID = 1L;
+
+	private final BitSet dirtyAttributes = new BitSet();
+
+	public TrackedPerson() {
+	}
+
+	public TrackedPerson(String cn, String sn) {
+		super(cn, sn);
+		dirtyAttributes.set(0);
+		dirtyAttributes.set(1);
+	}
+
+	public boolean hasDirtyAttributes() {
+		return !dirtyAttributes.isEmpty();
+	}
+
+	public void clearDirtyAttributes() {
+		dirtyAttributes.clear();
+	}
+
+	public void setCn(String cn) {
+		super.setCn(cn);
+		dirtyAttributes.set(0);
+	}
+
+	public boolean isCnDirty() {
+		return dirtyAttributes.get(0);
+	}
+
+	public void setSn(String sn) {
+		super.setSn(sn);
+		dirtyAttributes.set(1);
+	}
+
+	public boolean isSnDirty() {
+		return dirtyAttributes.get(1);
+	}
+
+	public void setDescription(String[] description) {
+		super.setDescription(description);
+		dirtyAttributes.set(2);
+	}
+
+	public boolean isDescriptionDirty() {
+		return dirtyAttributes.get(2);
+	}
+
+	public void setUserPassword(byte[] userPassword) {
+		super.setUserPassword(userPassword);
+		dirtyAttributes.set(3);
+	}
+
+	public boolean isUserPasswordDirty() {
+		return dirtyAttributes.get(3);
+	}
+}
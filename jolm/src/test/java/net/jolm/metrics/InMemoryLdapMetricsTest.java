@@ -0,0 +1,73 @@
+package net.jolm.metrics;
+
+import static org.junit.Assert.*;
+
+import net.jolm.JolmLdapTemplate;
+import net.jolm.fixture.InMemoryLdapServer;
+import net.jolm.fixture.types.Person;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ldap.NameNotFoundException;
+
+public class InMemoryLdapMetricsTest {
+	private InMemoryLdapServer server = new InMemoryLdapServer();
+	private InMemoryLdapMetrics metrics = new InMemoryLdapMetrics();
+	private JolmLdapTemplate template;
+	
+	@Before public void setUp() throws Exception {
+		server.start();
+		server.addPeople(4);
+		template = server.createJolmLdapTemplate();
+		template.setMetrics(metrics);
+	}
+	
+	@After public void tearDown() {
+		server.stop();
+	}
+	
+	@Test public void check_operations_are_recorded() {
+		template.get("cn=person1,ou=people", Person.class);
+		try {
+			template.get("cn=missing,ou=people", Person.class);
+			fail("NameNotFoundException expected");
+		} catch (NameNotFoundException e) {
+		}
+		LdapOperationStatistics get = metrics.getStatistics(LdapMetrics.GET, Person.class);
+		assertEquals(2, get.getCount());
+		assertEquals(1, get.getErrorCount());
+		assertEquals(1, get.getTotalResultSize());
+		
+		template.find(InMemoryLdapServer.PEOPLE, "(sn=odd)", Person.class);
+		template.findByExample(InMemoryLdapServer.PEOPLE, new Person(null, "even"));
+		template.listChildren(InMemoryLdapServer.PEOPLE, Person.class);
+		assertEquals(1, metrics.getStatistics(LdapMetrics.FIND).getCount());
+		assertEquals(2, metrics.getStatistics(LdapMetrics.FIND, Person.class).getTotalResultSize());
+		assertEquals(2, metrics.getStatistics(LdapMetrics.FIND_BY_EXAMPLE, Person.class).getTotalResultSize());
+		assertEquals(4, metrics.getStatistics(LdapMetrics.LIST_CHILDREN, Person.class).getTotalResultSize());
+		
+		Person person = (Person)template.create(InMemoryLdapServer.PEOPLE, new Person("john", "doe"));
+		person.setSn("changed");
+		template.modify(person);
+		template.delete("cn=john,ou=people");
+		assertEquals(1, metrics.getStatistics(LdapMetrics.CREATE, Person.class).getCount());
+		assertEquals(1, metrics.getStatistics(LdapMetrics.MODIFY).getCount());
+		assertEquals(1, metrics.getStatistics(LdapMetrics.DELETE).getCount());
+	}
+	
+	@Test public void check_histogram() {
+		metrics.recordOperation(LdapMetrics.FIND, Person.class, 500000, 1, null);
+		metrics.recordOperation(LdapMetrics.FIND, Person.class, 3000000, 1, null);
+		metrics.recordOperation(LdapMetrics.FIND, Person.class, 20000000000L, 1, null);
+		LdapOperationStatistics statistics = metrics.getStatistics(LdapMetrics.FIND);
+		long[] histogram = statistics.getHistogram();
+		assertEquals(1, histogram[0]);
+		assertEquals(1, histogram[2]);
+		assertEquals(1, histogram[histogram.length - 1]);
+		assertEquals(1.0, statistics.getPercentileInMs(30), 0);
+		assertEquals(5.0, statistics.getPercentileInMs(50), 0);
+		assertEquals(20000.0, statistics.getPercentileInMs(99), 0);
+		assertEquals(20000.0, statistics.getMaxTimeInMs(), 0);
+	}
+}
@@ -0,0 +1,78 @@
+package net.jolm.pool;
+
+import static org.junit.Assert.*;
+
+import javax.naming.directory.DirContext;
+
+import net.jolm.JolmLdapTemplate;
+import net.jolm.fixture.InMemoryLdapServer;
+import net.jolm.fixture.mappers.PersonMapper;
+import net.jolm.fixture.types.Person;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PooledContextSourceTest {
+	private InMemoryLdapServer server = new InMemoryLdapServer();
+	private PooledContextSource contextSource;
+	private JolmLdapTemplate template;
+	
+	@Before public void setUp() throws Exception {
+		server.start();
+		server.addPeople(10);
+		contextSource = new PooledContextSourceBuilder(server.getContextSource())
+			.readOnlyPool(0, 1, 1)
+			.readWritePool(0, 1, 1)
+			.maxWait(100)
+			.validationQuery("", "objectclass=*")
+			.testOnBorrow(true)
+			.build();
+		template = new JolmLdapTemplate(contextSource);
+		template.registerLdapContextMapper(Person.class, new PersonMapper());
+	}
+	
+	@After public void tearDown() throws Exception {
+		contextSource.destroy();
+		server.stop();
+	}
+	
+	@Test public void check_connections_are_reused() {
+		for ( int i = 0; i < 3; i++ ) {
+			assertEquals(10, template.find(InMemoryLdapServer.PEOPLE, "(sn=*)", Person.class).size());
+		}
+		assertEquals(3, contextSource.getReadOnlyStatistics().getBorrowCount());
+		assertEquals(0, contextSource.getReadOnlyNumActive());
+		assertEquals(1, contextSource.getReadOnlyNumIdle());
+		assertEquals(0, contextSource.getReadOnlyStatistics().getFailedBorrowCount());
+	}
+	
+	@Test public void check_read_write_pool_is_separate() {
+		template.create(InMemoryLdapServer.PEOPLE, new Person("john", "doe"));
+		assertEquals(1, contextSource.getReadWriteStatistics().getBorrowCount());
+		assertEquals(1, contextSource.getReadWriteNumIdle());
+		assertEquals(0, contextSource.getReadOnlyStatistics().getBorrowCount());
+		assertEquals(0, contextSource.getReadOnlyNumIdle());
+	}
+	
+	@Test public void check_paged_search_over_pooled_context() {
+		template.setPageSize(3);
+		assertEquals(10, template.find(InMemoryLdapServer.PEOPLE, "(sn=*)", Person.class).size());
+		assertEquals(1, contextSource.getReadOnlyStatistics().getBorrowCount());
+	}
+	
+	@Test public void check_borrow_fails_when_pool_is_exhausted() throws Exception {
+		DirContext context = contextSource.getReadOnlyContext();
+		try {
+			contextSource.getReadOnlyContext();
+			fail("The pool should be exhausted.");
+		} catch (RuntimeException expected) {
+			assertEquals(1, contextSource.getReadOnlyStatistics().getFailedBorrowCount());
+			//The pool times maxWait with currentTimeMillis, the statistics with nanoTime.
+			assertTrue(contextSource.getReadOnlyStatistics().getMaxWaitInMs() >= 100 - 20);
+		} finally {
+			context.close();
+		}
+		assertEquals(1, contextSource.getReadOnlyNumIdle());
+	}
+}
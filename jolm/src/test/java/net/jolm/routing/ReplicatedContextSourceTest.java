@@ -0,0 +1,118 @@
+package net.jolm.routing;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import javax.naming.directory.DirContext;
+
+import net.jolm.JolmLdapTemplate;
+import net.jolm.fixture.InMemoryLdapServer;
+import net.jolm.fixture.types.Person;
+import net.jolm.routing.ReplicatedContextSource.LoadBalancingStrategy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ldap.core.ContextSource;
+
+public class ReplicatedContextSourceTest {
+	//Each server has a different number of people so the results tell where a read went.
+	private InMemoryLdapServer master = new InMemoryLdapServer();
+	private InMemoryLdapServer replica1 = new InMemoryLdapServer();
+	private InMemoryLdapServer replica2 = new InMemoryLdapServer();
+	private ReplicatedContextSource contextSource;
+	private JolmLdapTemplate template;
+	
+	@Before public void setUp() throws Exception {
+		master.start();
+		master.addPeople(10);
+		replica1.start();
+		replica1.addPeople(3);
+		replica2.start();
+		replica2.addPeople(5);
+		contextSource = new ReplicatedContextSource(master.getContextSource(), 
+				new ContextSource[] {replica1.getContextSource(), replica2.getContextSource()});
+		template = new JolmLdapTemplate(contextSource);
+		template.setContextMappersPackage("net.jolm.fixture.mappers");
+		template.afterPropertiesSet();
+	}
+	
+	@After public void tearDown() {
+		master.stop();
+		replica1.stop();
+		replica2.stop();
+	}
+	
+	@Test public void check_reads_round_robin_over_replicas() {
+		assertEquals(3, countPeople());
+		assertEquals(5, countPeople());
+		assertEquals(3, countPeople());
+		assertEquals(2, contextSource.getReadCount(0));
+		assertEquals(1, contextSource.getReadCount(1));
+	}
+	
+	@Test public void check_writes_go_to_master() throws Exception {
+		template.create(InMemoryLdapServer.PEOPLE, new Person("john", "doe"));
+		assertNotNull(master.getServer().getEntry("cn=john,ou=people," + InMemoryLdapServer.BASE));
+		assertNull(replica1.getServer().getEntry("cn=john,ou=people," + InMemoryLdapServer.BASE));
+		assertEquals(3, countPeople());
+	}
+	
+	@Test public void check_read_your_writes() throws Exception {
+		contextSource.setReadYourWritesWindowInMs(60000);
+		template.delete("cn=person9,ou=people");
+		assertEquals(9, countPeople());
+		assertEquals(9, countPeople());
+		
+		//Other threads still read from the replicas.
+		final int[] count = new int[1];
+		Thread thread = new Thread() {
+			public void run() {
+				count[0] = countPeople();
+			}
+		};
+		thread.start();
+		thread.join();
+		assertEquals(3, count[0]);
+		
+		contextSource.clearReadYourWrites();
+		assertEquals(5, countPeople());
+	}
+	
+	@Test public void check_read_your_concurrent_writes() {
+		contextSource.setReadYourWritesWindowInMs(60000);
+		template.setBatchConcurrency(2);
+		assertEquals(2, template.deleteAll(Arrays.asList("cn=person8,ou=people", "cn=person9,ou=people")).getSucceededCount());
+		assertEquals(8, countPeople());
+		
+		contextSource.clearReadYourWrites();
+		contextSource.recordWrite();
+		assertEquals(8, countPeople());
+	}
+	
+	@Test public void check_least_outstanding_requests() throws Exception {
+		contextSource.setLoadBalancingStrategy(LoadBalancingStrategy.LEAST_OUTSTANDING_REQUESTS);
+		DirContext context = contextSource.getReadOnlyContext();
+		assertTrue(context instanceof TrackedContext);
+		assertEquals(1, contextSource.getOutstandingRequests(0));
+		try {
+			//Replica 1 is busy, so the reads go to replica 2 until the context is closed.
+			assertEquals(5, countPeople());
+			assertEquals(5, countPeople());
+		} finally {
+			context.close();
+		}
+		assertEquals(0, contextSource.getOutstandingRequests(0));
+		assertEquals(0, contextSource.getOutstandingRequests(1));
+		
+		//The request controls of paged searches are set on the replica's context.
+		template.setPageSize(2);
+		assertEquals(5, countPeople());
+		assertEquals(0, contextSource.getOutstandingRequests(1));
+	}
+	
+	private int countPeople() {
+		return template.find(InMemoryLdapServer.PEOPLE, "(sn=*)", Person.class).size();
+	}
+}
@@ -49,10 +49,14 @@ public class JolmGenerator {
 	private final static String JAVA_PACKAGE_PARAM_NAME = "javaPackage";
 	private final static String CLASSNAME_PARAM_NAME = "className";
 	private final static String PARENTCLASSNAME_PARAM_NAME = "parentClassName";
+	private final static String TRACK_DIRTY_ATTRIBUTES_PARAM_NAME = "trackDirtyAttributes";
+	private final static String OBJECT_CLASSES_PARAM_NAME = "objectClasses";
+	private final static String TYPES_PACKAGE_PARAM_NAME = "typesPackage";
 	
 	private final static String TYPES_SUB_PACKAGE = "types"; 
 	private final static String MAPPERS_SUB_PACKAGE = "mappers";
 	private final static String MAPPERS_SUFFIX = "Mapper";
+	private final static String OBJECT_CLASS_INDEX_CLASS_NAME = "GeneratedObjectClassIndex";
 	
 	private String generateDirectory;
 	private String generatePackage;
@@ -61,6 +65,7 @@ public class JolmGenerator {
 	private boolean generateMappers;
 	private String typeTemplateFile;
 	private String mapperTemplateFile;
+	private boolean trackDirtyAttributes;
 
 	public void generate() throws Exception {
 		SchemaParser dxcSchemaParser = new DxcSchemaParser();
@@ -85,6 +90,7 @@ public class JolmGenerator {
 			model.put(OBJECT_CLASS_PARAM_NAME, objectClass);
 			model.put(CHILD_OBJECT_CLASS_PARAM_NAME, childObjectClasses);
 			model.put(RDN_ATTRIBUTE_PARAM_NAME, rdnAttribute);
+			model.put(TRACK_DIRTY_ATTRIBUTES_PARAM_NAME, trackDirtyAttributes);
 			
 			String className =capitalize(objectClass.getName());
 			String parentClassName = null;
@@ -104,6 +110,15 @@ public class JolmGenerator {
 				generateByTemplate(mapperTemplate, model, generatePackage + "." + MAPPERS_SUB_PACKAGE, className, parentClassName);
 			}
 		}
+		
+		if ( generateMappers ) {
+			//Lets the runtime pick the mapper of an entry by its object classes.
+			Map<String, Object> model = new HashMap<String, Object>();
+			model.put(OBJECT_CLASSES_PARAM_NAME, objectClasses);
+			model.put(TYPES_PACKAGE_PARAM_NAME, generatePackage + "." + TYPES_SUB_PACKAGE);
+			generateByTemplate(getObjectClassIndexTemplate(), model, generatePackage + "." + MAPPERS_SUB_PACKAGE, 
+					OBJECT_CLASS_INDEX_CLASS_NAME, null);
+		}
 	}
 
 	private Template getTypeTemplate() throws IOException {
@@ -122,6 +137,10 @@ public class JolmGenerator {
 		}
 	}
 	
+	private Template getObjectClassIndexTemplate() throws IOException {
+		return new Template(null, new InputStreamReader(getClass().getClassLoader().getResourceAsStream("templates/index.fm")), null);
+	}
+	
 	public void removeOldOutput() {
 		if ( generateTypes ) {
 			String typesDir = generateDirectory + File.separator + (generatePackage + "." + TYPES_SUB_PACKAGE).replaceAll("\\.", "\\" + File.separator);
@@ -246,4 +265,8 @@ public class JolmGenerator {
 	public void setMapperTemplateFile(String mapperTemplateFile) {
 		this.mapperTemplateFile = mapperTemplateFile;
 	}
+
+	public void setTrackDirtyAttributes(boolean trackDirtyAttributes) {
+		this.trackDirtyAttributes = trackDirtyAttributes;
+	}
 }
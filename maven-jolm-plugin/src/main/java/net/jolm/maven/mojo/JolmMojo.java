@@ -75,6 +75,14 @@ public class JolmMojo extends AbstractMojo {
 	 */
 	protected String mapperTemplateFile;
 
+	/**
+	 * Generates types that record which attributes have been set, and mappers that only 
+	 * map those attributes when the entities are modified.
+	 * 
+	 * @parameter expression="${trackDirtyAttributes}" default-value="false"
+	 */
+	protected boolean trackDirtyAttributes;
+
 	/**
 	 * @parameter expression="${removeOldOutput}" default-value="false"
 	 * @required
@@ -116,6 +124,7 @@ public class JolmMojo extends AbstractMojo {
 		jolmGenerator.setGenerateMappers(generateMappers);
 		jolmGenerator.setTypeTemplateFile(typeTemplateFile);
 		jolmGenerator.setMapperTemplateFile(mapperTemplateFile);
+		jolmGenerator.setTrackDirtyAttributes(trackDirtyAttributes);
 		
 		Logger.getInstance().setVerbose(verbose);
 		Logger.getInstance().setLog(getLog());
@@ -194,6 +203,7 @@ public class JolmMojo extends AbstractMojo {
 		getLog().info("generateTypes: " + generateTypes);
 		getLog().info("generateMappers: " + generateMappers);
 		getLog().info("generateDirectory: " + generateDirectory);
+		getLog().info("trackDirtyAttributes: " + trackDirtyAttributes);
 		getLog().info("removeOldOutput: " + removeOldOutput);
 		getLog().info("verbose: " + verbose);
 	}
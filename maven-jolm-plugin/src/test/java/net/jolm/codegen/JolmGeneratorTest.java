@@ -0,0 +1,195 @@
+package net.jolm.codegen;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import net.jolm.DirtyTrackingLdapEntity;
+import net.jolm.ExampleFilterMapper;
+import net.jolm.JolmLdapTemplate;
+import net.jolm.LdapContextMapper;
+import net.jolm.LdapEntity;
+import net.jolm.maven.mojo.Logger;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.ldap.core.LdapTemplate;
+
+/**
+ * Generates the types and mappers of {@code test-schema.dxc}, compiles them and runs them.
+ */
+public class JolmGeneratorTest {
+	private static final String PACKAGE = "net.jolm.generated";
+
+	private File outputDir;
+	private ClassLoader classLoader;
+
+	@Before public void setUp() throws Exception {
+		Logger.getInstance().setLog(new SystemStreamLog());
+		outputDir = File.createTempFile("jolm-generator", "");
+		outputDir.delete();
+		new File(outputDir, "net/jolm/generated/types").mkdirs();
+		new File(outputDir, "net/jolm/generated/mappers").mkdirs();
+	}
+
+	@After public void tearDown() {
+		delete(outputDir);
+	}
+
+	@Test public void check_constructor_marks_required_attributes_dirty() throws Exception {
+		generateAndCompile(true);
+		DirtyTrackingLdapEntity person = (DirtyTrackingLdapEntity)loadType("Person")
+			.getConstructor(String.class, String.class).newInstance("john", "doe");
+		assertTrue(person.hasDirtyAttributes());
+		assertTrue(isDirty(person, "Cn"));
+		assertTrue(isDirty(person, "Sn"));
+		assertFalse(isDirty(person, "Description"));
+
+		DirContextAdapter context = new DirContextAdapter();
+		loadMapper("Person").mapToContext(person, context);
+		assertEquals("doe", context.getStringAttribute("sn"));
+		assertEquals("john", context.getStringAttribute("cn"));
+	}
+
+	@Test public void check_subclass_maps_only_dirty_attributes() throws Exception {
+		generateAndCompile(true);
+		DirtyTrackingLdapEntity person = (DirtyTrackingLdapEntity)loadType("OrganizationalPerson").newInstance();
+		assertFalse(person.hasDirtyAttributes());
+		person.getClass().getMethod("setTitle", String.class).invoke(person, "engineer");
+		assertTrue(person.hasDirtyAttributes());
+
+		LdapContextMapper mapper = loadMapper("OrganizationalPerson");
+		DirContextAdapter context = new DirContextAdapter();
+		mapper.mapToContext(person, context);
+		assertEquals("engineer", context.getStringAttribute("title"));
+		assertEquals(1, context.getAttributes().size());
+
+		person.getClass().getMethod("setSn", String.class).invoke(person, "doe");
+		context = new DirContextAdapter();
+		mapper.mapToContext(person, context);
+		assertEquals(2, context.getAttributes().size());
+
+		person.clearDirtyAttributes();
+		assertFalse(person.hasDirtyAttributes());
+		assertEquals(Arrays.asList("top", "person", "organizationalPerson"),
+				Arrays.asList(mapper.mapToContext(person).getStringAttributes("objectclass")));
+	}
+
+	@Test public void check_loaded_entity_is_clean() throws Exception {
+		generateAndCompile(true);
+		DirContextAdapter context = new DirContextAdapter();
+		context.setAttributeValues("objectClass", new String[] {"top", "person", "organizationalPerson"});
+		context.setAttributeValue("cn", "john");
+		context.setAttributeValue("sn", "doe");
+		context.setAttributeValue("title", "engineer");
+
+		DirtyTrackingLdapEntity person = (DirtyTrackingLdapEntity)loadMapper("OrganizationalPerson").mapFromContext(context);
+		assertFalse(person.hasDirtyAttributes());
+		assertEquals("engineer", person.getClass().getMethod("getTitle").invoke(person));
+		assertEquals("cn=john", person.getRdn());
+	}
+
+	@Test public void check_without_dirty_tracking() throws Exception {
+		generateAndCompile(false);
+		LdapEntity person = (LdapEntity)loadType("Person").getConstructor(String.class, String.class).newInstance("john", "doe");
+		assertFalse(person instanceof DirtyTrackingLdapEntity);
+
+		DirContextAdapter context = new DirContextAdapter();
+		loadMapper("Person").mapToContext(person, context);
+		assertEquals("doe", context.getStringAttribute("sn"));
+	}
+
+	@Test public void check_example_filter_matches_reflective_filter() throws Exception {
+		generateAndCompile(true);
+		Class<? extends LdapEntity> personClass = loadType("OrganizationalPerson").asSubclass(LdapEntity.class);
+		final LdapContextMapper mapper = loadMapper("OrganizationalPerson");
+		assertTrue(mapper instanceof ExampleFilterMapper);
+		JolmLdapTemplate template = new JolmLdapTemplate(new LdapTemplate());
+		template.registerLdapContextMapper(personClass, new LdapContextMapper() {
+			public DirContextOperations mapToContext(Object object) {
+				return mapper.mapToContext(object);
+			}
+			public void mapToContext(Object object, DirContextOperations context) {
+				mapper.mapToContext(object, context);
+			}
+			public Object mapFromContext(Object ctx) {
+				return mapper.mapFromContext(ctx);
+			}
+			public void mapFromContext(DirContextOperations ctx, Object resultObject) {
+				mapper.mapFromContext(ctx, resultObject);
+			}
+		});
+
+		// The generated filter adds the attributes in schema order and the reflective one by
+		// property name, the attributes set here are in the same order in both.
+		LdapEntity example = personClass.newInstance();
+		personClass.getMethod("setCn", String.class).invoke(example, "john");
+		personClass.getMethod("setDescription", String[].class).invoke(example, (Object)new String[] {"first", "", null, "second"});
+		for ( boolean wildcardFilters : new boolean[] {false, true} ) {
+			String generatedFilter = ((ExampleFilterMapper)mapper).toExampleFilter(example, wildcardFilters).encode();
+			assertEquals(template.getExampleFilter(example, wildcardFilters).encode(), generatedFilter);
+		}
+		assertEquals("(&(cn=john)(description=first)(description=second))",
+				((ExampleFilterMapper)mapper).toExampleFilter(example, false).encode());
+	}
+
+	private void generateAndCompile(boolean trackDirtyAttributes) throws Exception {
+		JolmGenerator generator = new JolmGenerator();
+		generator.setGenerateDirectory(outputDir.getPath());
+		generator.setGeneratePackage(PACKAGE);
+		generator.setSchemaFilePaths(new String[] {new File(getClass().getResource("/test-schema.dxc").toURI()).getPath()});
+		generator.setGenerateTypes(true);
+		generator.setGenerateMappers(true);
+		generator.setTrackDirtyAttributes(trackDirtyAttributes);
+		generator.generate();
+
+		List<String> arguments = new ArrayList<String>(Arrays.asList(
+				"-classpath", System.getProperty("java.class.path"), "-d", outputDir.getPath(), "-nowarn"));
+		for ( String subPackage : new String[] {"types", "mappers"} ) {
+			for ( File javaFile : new File(outputDir, "net/jolm/generated/" + subPackage).listFiles() ) {
+				arguments.add(javaFile.getPath());
+			}
+		}
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		assertNotNull("Compiling the generated code requires a JDK.", compiler);
+		ByteArrayOutputStream errors = new ByteArrayOutputStream();
+		int result = compiler.run(null, null, errors, arguments.toArray(new String[arguments.size()]));
+		assertEquals(errors.toString(), 0, result);
+		classLoader = new URLClassLoader(new URL[] {outputDir.toURI().toURL()}, getClass().getClassLoader());
+	}
+
+	private Class<?> loadType(String className) throws ClassNotFoundException {
+		return classLoader.loadClass(PACKAGE + ".types." + className);
+	}
+
+	private LdapContextMapper loadMapper(String className) throws Exception {
+		return (LdapContextMapper)classLoader.loadClass(PACKAGE + ".mappers." + className + "Mapper").newInstance();
+	}
+
+	private boolean isDirty(Object entity, String fieldName) throws Exception {
+		return (Boolean)entity.getClass().getMethod("is" + fieldName + "Dirty").invoke(entity);
+	}
+
+	private void delete(File file) {
+		File[] children = file.listFiles();
+		if ( children != null ) {
+			for ( File child : children ) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}